@@ -0,0 +1,101 @@
+package transportation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import transportation.TransportationAdminApiGatewayApplication;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка POST v1/bills/add через весь шлюз: контроллер, проверка пользователя
+ * через кэш и запрос в bills-service. Сервисы заменены заглушками в том же процессе.
+ * stub - тот же запрос напрямую в заглушку bills-service, мимо шлюза: опорная задержка
+ * HTTP-стека на этой машине, относительно которой RegressionGate оценивает add.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BillsAddBenchmark {
+
+    private static final String FIXTURE_USER_ID = "5f0c2d7e-3b1a-4a8e-9d55-6b3f0a1c2e47";
+
+    /**
+     * true - пользователь уже в кэше, false - каждый запрос с новым пользователем.
+     */
+    @Param({"true", "false"})
+    public boolean cachedUser;
+
+    private StubUpstreams upstreams;
+    private ConfigurableApplicationContext gateway;
+    private WebClient client;
+    private WebClient stubClient;
+    private String billTemplate;
+
+    @Setup
+    public void setUp() {
+        upstreams = new StubUpstreams();
+        gateway = new SpringApplicationBuilder(TransportationAdminApiGatewayApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--management.server.port=-1",
+                        "--logging.level.root=WARN",
+                        "--rate-limit.enabled=false",
+                        "--cache.warmup.enabled=false",
+                        "--services.user-service-url=" + upstreams.userServiceUrl(),
+                        "--services.bills-service-url=" + upstreams.billsServiceUrl());
+        int port = ((ReactiveWebServerApplicationContext) gateway).getWebServer().getPort();
+        client = WebClient.create("http://127.0.0.1:" + port);
+        stubClient = WebClient.create(upstreams.billsServiceUrl());
+        billTemplate = Fixtures.readString("bill-post.json");
+    }
+
+    @TearDown
+    public void tearDown() {
+        gateway.close();
+        upstreams.close();
+    }
+
+    @Benchmark
+    public String add() {
+        String body = cachedUser
+                ? billTemplate
+                : billTemplate.replace(FIXTURE_USER_ID, UUID.randomUUID().toString());
+        return client.post()
+                .uri("/v1/bills/add")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+    }
+
+    @Benchmark
+    public String stub() {
+        return stubClient.post()
+                .uri("bills/add")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(billTemplate)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+    }
+}
@@ -0,0 +1,44 @@
+package transportation.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Образцы ответов сервисов и ObjectMapper, настроенный так же, как в WebClientConfiguration.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static byte[] read(String name) {
+        try (InputStream stream = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (stream == null) {
+                throw new IllegalStateException("Fixture " + name + " not found");
+            }
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String readString(String name) {
+        return new String(read(name), StandardCharsets.UTF_8);
+    }
+
+    static ObjectMapper gatewayMapper() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        mapper.enable(SerializationFeature.WRITE_DATES_WITH_ZONE_ID);
+        mapper.configure(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE, false);
+        mapper.registerModule(new JavaTimeModule());
+        return mapper;
+    }
+}
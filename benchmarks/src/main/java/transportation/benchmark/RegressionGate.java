@@ -0,0 +1,133 @@
+package transportation.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Проверка бенчмарков на регрессию для CI. Абсолютное время на общем раннере зависит
+ * от машины, поэтому оценка каждого бенчмарка делится на оценку опорного бенчмарка
+ * из того же прогона, и это отношение сравнивается с базовым из файла. Прогон
+ * завершается с кодом 1, если отношение выросло больше чем на tolerance.
+ * С ключом --update отношения этого прогона записываются в файл как новая база.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar transportation.benchmark.RegressionGate \
+ *     benchmarks/baseline.properties [--update]
+ * </pre>
+ *
+ * Файл задает include (регулярное выражение для бенчмарков), reference (опорный бенчмарк),
+ * param.&lt;name&gt; (значения параметров), tolerance и ratio.&lt;benchmark&gt; (базовые отношения).
+ */
+public final class RegressionGate {
+
+    private static final String RATIO_PREFIX = "ratio.";
+    private static final String PARAM_PREFIX = "param.";
+
+    private RegressionGate() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: RegressionGate <baseline file> [--update]");
+        }
+        Path baselineFile = Paths.get(args[0]);
+        boolean update = args.length > 1 && "--update".equals(args[1]);
+        Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(baselineFile)) {
+            baseline.load(reader);
+        }
+        String reference = required(baseline, "reference");
+        double tolerance = Double.parseDouble(required(baseline, "tolerance"));
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(required(baseline, "include"))
+                .warmupIterations(1)
+                .warmupTime(TimeValue.seconds(5))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(5))
+                .forks(1);
+        for (String key : baseline.stringPropertyNames()) {
+            if (key.startsWith(PARAM_PREFIX)) {
+                options.param(key.substring(PARAM_PREFIX.length()), baseline.getProperty(key));
+            }
+        }
+
+        Map<String, Double> scores = new TreeMap<>();
+        for (RunResult result : new Runner(options.build()).run()) {
+            scores.put(shortName(result.getParams().getBenchmark()), result.getPrimaryResult().getScore());
+        }
+        Double referenceScore = scores.remove(reference);
+        if (referenceScore == null || scores.isEmpty()) {
+            System.out.println("FAILED: reference " + reference + " or benchmarks to check did not run: " + scores.keySet());
+            System.exit(1);
+        }
+
+        Map<String, Double> ratios = new TreeMap<>();
+        scores.forEach((name, score) -> ratios.put(name, score / referenceScore));
+        if (update) {
+            writeRatios(baselineFile, ratios);
+            ratios.forEach((name, ratio) -> System.out.printf(Locale.ROOT, "UPDATED: %s ratio %.3f%n", name, ratio));
+            return;
+        }
+
+        boolean failed = false;
+        for (Map.Entry<String, Double> entry : ratios.entrySet()) {
+            String expected = baseline.getProperty(RATIO_PREFIX + entry.getKey());
+            if (expected == null) {
+                System.out.printf("FAILED: %s has no baseline ratio, run with --update%n", entry.getKey());
+                failed = true;
+                continue;
+            }
+            double limit = Double.parseDouble(expected) * (1 + tolerance);
+            boolean regressed = entry.getValue() > limit;
+            System.out.printf(Locale.ROOT, "%s: %s %.1f us/op, %.3f x %s (baseline %s, limit %.3f)%n",
+                    regressed ? "FAILED" : "OK", entry.getKey(), scores.get(entry.getKey()), entry.getValue(),
+                    reference, expected, limit);
+            failed |= regressed;
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static String required(Properties baseline, String key) {
+        String value = baseline.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Baseline file has no " + key);
+        }
+        return value;
+    }
+
+    /**
+     * transportation.benchmark.BillsAddBenchmark.add -> BillsAddBenchmark.add
+     */
+    private static String shortName(String benchmark) {
+        return benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+    }
+
+    /**
+     * Заменяет строки ratio.* новыми отношениями, остальные строки и комментарии сохраняет.
+     */
+    private static void writeRatios(Path baselineFile, Map<String, Double> ratios) throws IOException {
+        List<String> lines = Files.readAllLines(baselineFile).stream()
+                .filter(line -> !line.startsWith(RATIO_PREFIX))
+                .collect(Collectors.toCollection(ArrayList::new));
+        ratios.forEach((name, ratio) -> lines.add(String.format(Locale.ROOT, "%s%s=%.3f", RATIO_PREFIX, name, ratio)));
+        Files.write(baselineFile, lines);
+    }
+}
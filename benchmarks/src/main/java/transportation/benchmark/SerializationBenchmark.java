@@ -0,0 +1,105 @@
+package transportation.benchmark;
+
+import bill.BillPageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import transportation.cache.CachedUser;
+import transportation.cache.CachedUserSerializer;
+import users.UserResponseDto;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость (де)сериализации ответов сервисов: ObjectMapper шлюза, Jackson2JsonDecoder
+ * из WebClientConfiguration и Smile-сериализатор off-heap уровня кэша.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final ResolvableType BILL_PAGE_TYPE = ResolvableType.forClass(BillPageResponse.class);
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private ObjectMapper mapper;
+    private Jackson2JsonDecoder decoder;
+    private CachedUserSerializer cachedUserSerializer;
+    private byte[] userJson;
+    private byte[] billPageJson;
+    private UserResponseDto user;
+    private BillPageResponse billPage;
+    private CachedUser cachedUser;
+    private ByteBuffer cachedUserBinary;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = Fixtures.gatewayMapper();
+        decoder = new Jackson2JsonDecoder(mapper);
+        cachedUserSerializer = new CachedUserSerializer(Jackson2ObjectMapperBuilder.smile().build());
+        userJson = Fixtures.read("user.json");
+        billPageJson = Fixtures.read("bill-page.json");
+        user = mapper.readValue(userJson, UserResponseDto.class);
+        billPage = mapper.readValue(billPageJson, BillPageResponse.class);
+        cachedUser = new CachedUser(user, System.currentTimeMillis());
+        cachedUserBinary = cachedUserSerializer.serialize(cachedUser);
+    }
+
+    @Benchmark
+    public UserResponseDto decodeUser() throws Exception {
+        return mapper.readValue(userJson, UserResponseDto.class);
+    }
+
+    @Benchmark
+    public byte[] encodeUser() throws Exception {
+        return mapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public BillPageResponse decodeBillPage() throws Exception {
+        return mapper.readValue(billPageJson, BillPageResponse.class);
+    }
+
+    @Benchmark
+    public byte[] encodeBillPage() throws Exception {
+        return mapper.writeValueAsBytes(billPage);
+    }
+
+    @Benchmark
+    public Object decodeBillPageWithCodec() {
+        DataBuffer buffer = bufferFactory.wrap(billPageJson);
+        return decoder.decodeToMono(Flux.just(buffer), BILL_PAGE_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .block();
+    }
+
+    @Benchmark
+    public ByteBuffer serializeCachedUser() {
+        return cachedUserSerializer.serialize(cachedUser);
+    }
+
+    @Benchmark
+    public CachedUser readCachedUser() throws Exception {
+        return cachedUserSerializer.read(cachedUserBinary.duplicate());
+    }
+}
@@ -0,0 +1,48 @@
+package transportation.benchmark;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Заглушки user-service и bills-service на случайных портах в том же процессе.
+ * users/{externalId} возвращает пользователя с запрошенным id, bills/add - тело запроса.
+ */
+final class StubUpstreams implements AutoCloseable {
+
+    private final DisposableServer users;
+    private final DisposableServer bills;
+
+    StubUpstreams() {
+        users = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.get("/v1/users/{externalId}", (request, response) -> response
+                        .header(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendString(Mono.just("{\"externalId\":\"" + request.param("externalId") + "\"}"))))
+                .bindNow();
+        bills = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.post("/v1/bills/add", (request, response) -> response
+                        .header(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendString(request.receive().aggregate().asString())))
+                .bindNow();
+    }
+
+    String userServiceUrl() {
+        return "http://127.0.0.1:" + users.port() + "/v1/";
+    }
+
+    String billsServiceUrl() {
+        return "http://127.0.0.1:" + bills.port() + "/v1/";
+    }
+
+    @Override
+    public void close() {
+        users.disposeNow();
+        bills.disposeNow();
+    }
+}
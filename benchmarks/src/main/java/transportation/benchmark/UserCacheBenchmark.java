@@ -0,0 +1,125 @@
+package transportation.benchmark;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import transportation.cache.CachedUser;
+import transportation.cache.UserCache;
+import transportation.config.CacheConfiguration;
+import transportation.config.CacheProperties;
+import users.UserResponseDto;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность кэша пользователей при конкурентном доступе.
+ * Аллокации на операцию - с профилировщиком: {@code java -jar benchmarks.jar UserCache -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class UserCacheBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    /**
+     * heap - все записи помещаются в heap-уровень, offheap - почти все чтения идут в off-heap.
+     */
+    @Param({"heap", "offheap"})
+    public String tier;
+
+    private CacheManager cacheManager;
+    private Cache<UUID, CachedUser> cache;
+    private UserCache userCache;
+    private UUID[] ids;
+    private CachedUser[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        long heapEntries = "heap".equals(tier) ? KEYS * 2 : KEYS / 100;
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setDiskDirectory(Files.createTempDirectory("user-cache-benchmark").toString());
+        cacheProperties.getCaches().put("users", tiers(heapEntries, DataSize.ofMegabytes(64), Duration.ofMinutes(60)));
+        cacheProperties.getCaches().put("absent_users", tiers(1000, null, Duration.ofSeconds(30)));
+        cacheProperties.getCaches().put("pages", tiers(100, null, Duration.ofSeconds(300)));
+        cacheManager = new CacheConfiguration().ehCacheManager(cacheProperties, "users", "absent_users", "pages");
+        cache = cacheManager.getCache("users", UUID.class, CachedUser.class);
+        userCache = new UserCache(cacheManager, new SimpleMeterRegistry(), "users", cacheProperties,
+                BulkheadRegistry.ofDefaults(), 0.8);
+
+        UserResponseDto template = Fixtures.gatewayMapper().readValue(Fixtures.read("user.json"), UserResponseDto.class);
+        ids = new UUID[KEYS];
+        values = new CachedUser[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            UserResponseDto user = Fixtures.gatewayMapper().convertValue(template, UserResponseDto.class);
+            user.setExternalId(UUID.randomUUID());
+            ids[i] = user.getExternalId();
+            values[i] = new CachedUser(user, System.currentTimeMillis());
+            cache.put(ids[i], values[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int next() {
+            return random.nextInt(KEYS);
+        }
+    }
+
+    @Benchmark
+    public CachedUser get(Cursor cursor) {
+        return cache.get(ids[cursor.next()]);
+    }
+
+    @Benchmark
+    public void put(Cursor cursor) {
+        int index = cursor.next();
+        cache.put(ids[index], values[index]);
+    }
+
+    @Benchmark
+    public UserResponseDto userCacheGet(Cursor cursor) {
+        int index = cursor.next();
+        return userCache.get(ids[index], id -> Mono.just(values[index].getUser())).block();
+    }
+
+    private static CacheProperties.Tiers tiers(long heap, DataSize offheap, Duration ttl) {
+        CacheProperties.Tiers tiers = new CacheProperties.Tiers();
+        tiers.setHeap(heap);
+        tiers.setOffheap(offheap);
+        tiers.setTtl(ttl);
+        return tiers;
+    }
+}
@@ -0,0 +1,105 @@
+package transportation.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import transportation.TransportationAdminApiGatewayApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Нагрузочный прогон шлюза: поднимает заглушки сервисов и шлюз в одном процессе,
+ * прогревает его, затем подает нагрузку с заданной частотой и смесью операций и печатает отчет.
+ * Возвращает код 1, если превышены пороги --max-p99-ms или --max-error-rate.
+ *
+ * <pre>
+ * java -jar loadtest/target/loadtest.jar --rate=500 --duration=2m \
+ *     --mix=bills-add=70,users-get=30 --user-latency=20ms --user-error-rate=0.01 \
+ *     --gateway.cache.warmup.enabled=true
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        UserPool users = new UserPool(options.users, options.missingUserRatio);
+        int exitCode;
+        try (StubServices stubs = new StubServices(users, options)) {
+            // Аргументы командной строки, а не properties(): те лишь задают значения по умолчанию
+            // и перекрываются application.yml шлюза.
+            List<String> gatewayArgs = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--management.server.port=-1",
+                    "--logging.level.root=WARN",
+                    "--services.user-service-url=" + stubs.userServiceUrl(),
+                    "--services.bills-service-url=" + stubs.billsServiceUrl()));
+            options.gatewayProperties.forEach((name, value) -> gatewayArgs.add("--" + name + "=" + value));
+            try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(
+                    TransportationAdminApiGatewayApplication.class)
+                    .run(gatewayArgs.toArray(new String[0]))) {
+                exitCode = run(options, users, stubs, gateway);
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(LoadTestOptions options, UserPool users, StubServices stubs,
+                           ConfigurableApplicationContext gateway) {
+        int port = ((ReactiveWebServerApplicationContext) gateway).getWebServer().getPort();
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(options.maxInFlight)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+        MeterRegistry registry = gateway.getBean(MeterRegistry.class);
+        OpenLoadGenerator generator = new OpenLoadGenerator(client, users, options);
+
+        System.out.printf("rate=%.0f/s duration=%s warmup=%s mix=%s users=%d missing-user-ratio=%s%n",
+                options.rate, options.duration, options.warmup, options.mix, options.users, options.missingUserRatio);
+        System.out.println("user-service: " + options.userService + ", bills-service: " + options.billsService);
+        if (!options.warmup.isZero()) {
+            generator.run(options.warmup);
+        }
+        stubs.resetCalls();
+        double hits = cacheGets(registry, "hit");
+        double misses = cacheGets(registry, "miss");
+        OpenLoadGenerator.Results results = generator.run(options.duration);
+
+        Report report = new Report();
+        report.print(results, stubs.calls(), cacheGets(registry, "hit") - hits,
+                cacheGets(registry, "miss") - misses, System.out);
+        connections.disposeLater().block();
+
+        boolean failed = false;
+        if (options.maxP99Millis >= 0 && report.p99Millis() > options.maxP99Millis) {
+            System.out.printf("FAILED: p99 %.2f ms exceeds %.2f ms%n", report.p99Millis(), options.maxP99Millis);
+            failed = true;
+        }
+        if (options.maxErrorRate >= 0 && report.errorRate() > options.maxErrorRate) {
+            System.out.printf("FAILED: error rate %.4f exceeds %.4f%n", report.errorRate(), options.maxErrorRate);
+            failed = true;
+        }
+        return failed ? 1 : 0;
+    }
+
+    private static double cacheGets(MeterRegistry registry, String result) {
+        return registry.find("cache.gets").tag("cache", "users").tag("result", result).functionCounters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum()
+                + registry.find("cache.gets").tag("cache", "users").tag("result", result).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+}
@@ -0,0 +1,115 @@
+package transportation.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Параметры прогона из аргументов вида --name=value. Аргументы --gateway.* передаются
+ * шлюзу как свойства Spring без префикса gateway.
+ */
+final class LoadTestOptions {
+
+    double rate = 200;
+    Duration duration = Duration.ofSeconds(60);
+    Duration warmup = Duration.ofSeconds(10);
+    int maxInFlight = 2000;
+    Map<Operation, Integer> mix = parseMix("bills-add=70,users-get=20,users-all=5,bills-all=5");
+    int users = 10_000;
+    double missingUserRatio = 0.01;
+    StubServices.Profile userService = new StubServices.Profile();
+    StubServices.Profile billsService = new StubServices.Profile();
+    int pageSize = 20;
+    int payloadPadding = 0;
+    double maxP99Millis = -1;
+    double maxErrorRate = -1;
+    Map<String, String> gatewayProperties = new LinkedHashMap<>(Map.of(
+            "cache.warmup.enabled", "false",
+            "rate-limit.enabled", "false"));
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith("gateway.")) {
+                options.gatewayProperties.put(name.substring("gateway.".length()), value);
+                continue;
+            }
+            options.set(name, value);
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "rate":
+                rate = Double.parseDouble(value);
+                break;
+            case "duration":
+                duration = DurationStyle.detectAndParse(value);
+                break;
+            case "warmup":
+                warmup = DurationStyle.detectAndParse(value);
+                break;
+            case "max-in-flight":
+                maxInFlight = Integer.parseInt(value);
+                break;
+            case "mix":
+                mix = parseMix(value);
+                break;
+            case "users":
+                users = Integer.parseInt(value);
+                break;
+            case "missing-user-ratio":
+                missingUserRatio = Double.parseDouble(value);
+                break;
+            case "user-latency":
+                userService.latency = DurationStyle.detectAndParse(value);
+                break;
+            case "user-jitter":
+                userService.jitter = DurationStyle.detectAndParse(value);
+                break;
+            case "user-error-rate":
+                userService.errorRate = Double.parseDouble(value);
+                break;
+            case "bill-latency":
+                billsService.latency = DurationStyle.detectAndParse(value);
+                break;
+            case "bill-jitter":
+                billsService.jitter = DurationStyle.detectAndParse(value);
+                break;
+            case "bill-error-rate":
+                billsService.errorRate = Double.parseDouble(value);
+                break;
+            case "page-size":
+                pageSize = Integer.parseInt(value);
+                break;
+            case "payload-padding":
+                payloadPadding = Integer.parseInt(value);
+                break;
+            case "max-p99-ms":
+                maxP99Millis = Double.parseDouble(value);
+                break;
+            case "max-error-rate":
+                maxErrorRate = Double.parseDouble(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] weight = part.trim().split("=");
+            mix.put(Operation.of(weight[0]), Integer.parseInt(weight[1]));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,154 @@
+package transportation.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки по открытой модели: запросы отправляются с постоянной частотой
+ * независимо от того, успевает ли шлюз отвечать. Задержка считается от запланированного
+ * момента отправки, поэтому очередь на стороне клиента не прячет замедление шлюза
+ * (coordinated omission). Если в полете уже maxInFlight запросов фазы, очередной запрос
+ * не отправляется и учитывается как отброшенный. Запросы, не завершившиеся за DRAIN_TIMEOUT
+ * после окончания фазы, отменяются и учитываются как незавершенные, поэтому отставшие
+ * запросы разогрева не занимают места в фазе измерения.
+ */
+final class OpenLoadGenerator {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Результаты одной фазы прогона.
+     */
+    static final class Results {
+
+        final Duration duration;
+        final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+        final Map<Operation, Map<Integer, LongAdder>> statuses = new EnumMap<>(Operation.class);
+        final LongAdder dropped = new LongAdder();
+        final AtomicInteger pending = new AtomicInteger();
+        volatile int unfinished;
+        private volatile boolean closed;
+        private final Sinks.Empty<Void> closing = Sinks.empty();
+
+        private Results(Duration duration, Iterable<Operation> operations) {
+            this.duration = duration;
+            for (Operation operation : operations) {
+                latencies.put(operation, new Recorder(MAX_LATENCY_NANOS, 3));
+                statuses.put(operation, new ConcurrentHashMap<>());
+            }
+        }
+
+        /**
+         * Завершает фазу: оставшиеся запросы считаются незавершенными и отменяются.
+         */
+        private void close() {
+            closed = true;
+            unfinished = pending.get();
+            closing.tryEmitEmpty();
+        }
+
+        private void record(Operation operation, long intendedStart, int status) {
+            if (closed) {
+                return;
+            }
+            latencies.get(operation).recordValue(Math.min(System.nanoTime() - intendedStart, MAX_LATENCY_NANOS));
+            statuses.get(operation).computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        Histogram histogram(Operation operation) {
+            return latencies.get(operation).getIntervalHistogram();
+        }
+
+        Map<Integer, Long> statuses(Operation operation) {
+            Map<Integer, Long> snapshot = new TreeMap<>();
+            statuses.get(operation).forEach((status, counter) -> snapshot.put(status, counter.sum()));
+            return snapshot;
+        }
+    }
+
+    private final WebClient client;
+    private final UserPool users;
+    private final LoadTestOptions options;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    OpenLoadGenerator(WebClient client, UserPool users, LoadTestOptions options) {
+        this.client = client;
+        this.users = users;
+        this.options = options;
+        this.operations = options.mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += options.mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Operation mix must have a positive total weight");
+        }
+    }
+
+    /**
+     * Отправляет запросы в течение duration и ждет завершения отправленных.
+     */
+    Results run(Duration duration) {
+        Results results = new Results(duration, options.mix.keySet());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(nextOperation(), intendedStart, results);
+        }
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (results.pending.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        results.close();
+        return results;
+    }
+
+    private void send(Operation operation, long intendedStart, Results results) {
+        if (results.pending.incrementAndGet() > options.maxInFlight) {
+            results.pending.decrementAndGet();
+            results.dropped.increment();
+            return;
+        }
+        operation.call(client, users, options.pageSize)
+                .onErrorReturn(-1)
+                .takeUntilOther(results.closing.asMono())
+                .doFinally(signal -> results.pending.decrementAndGet())
+                .subscribe(status -> results.record(operation, intendedStart, status));
+    }
+
+    private Operation nextOperation() {
+        int point = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+}
@@ -0,0 +1,80 @@
+package transportation.loadtest;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Операции смеси нагрузки. Каждая возвращает HTTP-статус ответа шлюза.
+ */
+enum Operation {
+
+    BILLS_ADD("bills-add") {
+        @Override
+        Mono<Integer> call(WebClient client, UserPool users, int pageSize) {
+            return status(client.post()
+                    .uri("/v1/bills/add")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("{\"userId\":\"" + users.next() + "\",\"amount\":100.5}"));
+        }
+    },
+    USERS_GET("users-get") {
+        @Override
+        Mono<Integer> call(WebClient client, UserPool users, int pageSize) {
+            return status(client.get().uri("/v1/users/{externalId}", users.next()));
+        }
+    },
+    BILLS_GET("bills-get") {
+        @Override
+        Mono<Integer> call(WebClient client, UserPool users, int pageSize) {
+            return status(client.get().uri("/v1/bills/{externalId}", UUID.randomUUID()));
+        }
+    },
+    USERS_ALL("users-all") {
+        @Override
+        Mono<Integer> call(WebClient client, UserPool users, int pageSize) {
+            return status(client.get().uri("/v1/users/all?direction=ASC&pageNumber={page}&pageSize={size}",
+                    ThreadLocalRandom.current().nextInt(5), pageSize));
+        }
+    },
+    BILLS_ALL("bills-all") {
+        @Override
+        Mono<Integer> call(WebClient client, UserPool users, int pageSize) {
+            return status(client.get().uri("/v1/bills/all?direction=ASC&showPaidBills=true&sizeNumber={size}&userId={userId}",
+                    pageSize, users.next()));
+        }
+    },
+    USER_OVERVIEW("user-overview") {
+        @Override
+        Mono<Integer> call(WebClient client, UserPool users, int pageSize) {
+            return status(client.get().uri("/v1/users/{externalId}/overview", users.next()));
+        }
+    };
+
+    private final String name;
+
+    Operation(String name) {
+        this.name = name;
+    }
+
+    abstract Mono<Integer> call(WebClient client, UserPool users, int pageSize);
+
+    String displayName() {
+        return name;
+    }
+
+    static Operation of(String name) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + name));
+    }
+
+    private static Mono<Integer> status(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+    }
+}
@@ -0,0 +1,66 @@
+package transportation.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Итог фазы измерения: пропускная способность и перцентили задержки по операциям,
+ * коды ответов, обращения к заглушкам и попадания в кэш пользователей.
+ * Ошибками считаются ответы 5xx и 429, сбои соединения, отброшенные запросы и запросы,
+ * не завершившиеся к концу ожидания; 404 на несуществующих пользователей - ожидаемый ответ.
+ */
+final class Report {
+
+    private final Histogram total = new Histogram(3);
+    private long requests;
+    private long errors;
+    private long dropped;
+    private long unfinished;
+
+    void print(OpenLoadGenerator.Results results, Map<String, Long> upstreamCalls,
+               double cacheHits, double cacheMisses, PrintStream out) {
+        double seconds = results.duration.toNanos() / 1e9;
+        out.printf("%-14s %9s %9s %9s %9s %9s %9s %9s  %s%n",
+                "operation", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        for (Operation operation : results.latencies.keySet()) {
+            Histogram histogram = results.histogram(operation);
+            Map<Integer, Long> statuses = results.statuses(operation);
+            total.add(histogram);
+            requests += histogram.getTotalCount();
+            statuses.forEach((status, count) -> {
+                if (status < 0 || status == 429 || status >= 500) {
+                    errors += count;
+                }
+            });
+            out.printf("%-14s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    operation.displayName(), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1e6, statuses);
+        }
+        dropped = results.dropped.sum();
+        unfinished = results.unfinished;
+        out.printf("%-14s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                "total", requests, requests / seconds, millis(total, 50), millis(total, 90), millis(total, 99),
+                millis(total, 99.9), total.getMaxValue() / 1e6);
+        out.printf("errors: %d (%.3f%%), dropped: %d, unfinished: %d%n", errors, errorRate() * 100, dropped, unfinished);
+        out.println("upstream calls: " + upstreamCalls);
+        double lookups = cacheHits + cacheMisses;
+        out.printf("users cache: %.0f hits, %.0f misses, hit rate %s%n", cacheHits, cacheMisses,
+                lookups > 0 ? String.format("%.1f%%", cacheHits / lookups * 100) : "n/a");
+    }
+
+    double p99Millis() {
+        return millis(total, 99);
+    }
+
+    double errorRate() {
+        long attempted = requests + dropped + unfinished;
+        return attempted == 0 ? 0 : (double) (errors + dropped + unfinished) / attempted;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+}
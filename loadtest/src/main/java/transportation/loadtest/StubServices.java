@@ -0,0 +1,203 @@
+package transportation.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Заглушки user-service и bills-service на случайных портах в том же процессе.
+ * Каждый маршрут отвечает с задержкой latency плюс экспоненциальный хвост со средним jitter
+ * и с вероятностью errorRate возвращает 503. Пользователи из пула существуют, остальные - 404.
+ */
+final class StubServices implements AutoCloseable {
+
+    private static final String CREATION_DATE = "2023-02-01T10:15:30";
+
+    /**
+     * Профиль ответа одного сервиса.
+     */
+    static final class Profile {
+
+        Duration latency = Duration.ofMillis(5);
+        Duration jitter = Duration.ofMillis(2);
+        double errorRate = 0;
+
+        Duration nextDelay() {
+            double tail = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * jitter.toNanos();
+            return latency.plusNanos((long) tail);
+        }
+
+        boolean nextFailed() {
+            return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        }
+
+        @Override
+        public String toString() {
+            return "latency=" + latency.toMillis() + "ms jitter=" + jitter.toMillis() + "ms error-rate=" + errorRate;
+        }
+    }
+
+    private final UserPool pool;
+    private final String padding;
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final DisposableServer users;
+    private final DisposableServer bills;
+
+    StubServices(UserPool pool, LoadTestOptions options) {
+        this.pool = pool;
+        this.padding = "x".repeat(options.payloadPadding);
+        Profile userProfile = options.userService;
+        Profile billsProfile = options.billsService;
+        users = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .get("/v1/users/all", handler("users/all", userProfile, this::userPage))
+                        .get("/v1/users/{externalId}", handler("users/{externalId}", userProfile, this::user)))
+                .bindNow();
+        bills = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .post("/v1/bills/add", handler("bills/add", billsProfile, this::addBill))
+                        .get("/v1/bills/all", handler("bills/all", billsProfile, this::billPage))
+                        .get("/v1/bills/{externalId}", handler("bills/{externalId}", billsProfile, this::bill)))
+                .bindNow();
+    }
+
+    String userServiceUrl() {
+        return "http://127.0.0.1:" + users.port() + "/v1/";
+    }
+
+    String billsServiceUrl() {
+        return "http://127.0.0.1:" + bills.port() + "/v1/";
+    }
+
+    /**
+     * Число запросов к каждому маршруту заглушек с момента последнего сброса.
+     */
+    Map<String, Long> calls() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        calls.forEach((route, counter) -> snapshot.put(route, counter.sum()));
+        return snapshot;
+    }
+
+    void resetCalls() {
+        calls.values().forEach(LongAdder::reset);
+    }
+
+    @Override
+    public void close() {
+        users.disposeNow();
+        bills.disposeNow();
+    }
+
+    private BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> handler(
+            String route, Profile profile, Function<HttpServerRequest, Mono<String>> body) {
+        LongAdder counter = calls.computeIfAbsent(route, key -> new LongAdder());
+        return (request, response) -> {
+            counter.increment();
+            Mono<Void> reply = profile.nextFailed()
+                    ? response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send()
+                    : body.apply(request)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(json -> json.isPresent()
+                            ? response.header(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .sendString(Mono.just(json.get()))
+                            .then()
+                            : response.status(HttpResponseStatus.NOT_FOUND).send());
+            return Mono.delay(profile.nextDelay()).then(reply);
+        };
+    }
+
+    private Mono<String> user(HttpServerRequest request) {
+        UUID externalId = UUID.fromString(request.param("externalId"));
+        return pool.exists(externalId) ? Mono.just(userJson(externalId)) : Mono.empty();
+    }
+
+    private Mono<String> userPage(HttpServerRequest request) {
+        Map<String, String> query = query(request);
+        int pageNumber = Integer.parseInt(query.getOrDefault("pageNumber", "0"));
+        int pageSize = Integer.parseInt(query.getOrDefault("pageSize", "10"));
+        StringJoiner content = new StringJoiner(",");
+        for (long i = (long) pageNumber * pageSize; i < Math.min((long) (pageNumber + 1) * pageSize, pool.size()); i++) {
+            content.add(userJson(new UUID(UserPool.MOST_SIGNIFICANT_BITS, i)));
+        }
+        return Mono.just(page(content, pageNumber, pageSize, pool.size()));
+    }
+
+    private Mono<String> addBill(HttpServerRequest request) {
+        return request.receive().aggregate().asString()
+                .map(body -> body.substring(0, body.lastIndexOf('}'))
+                        + ",\"externalId\":\"" + UUID.randomUUID() + "\",\"paid\":false,\"creationDate\":\""
+                        + CREATION_DATE + "\"}");
+    }
+
+    private Mono<String> bill(HttpServerRequest request) {
+        UUID externalId = UUID.fromString(request.param("externalId"));
+        return Mono.just(billJson(externalId, new UUID(UserPool.MOST_SIGNIFICANT_BITS, 0), 0));
+    }
+
+    private Mono<String> billPage(HttpServerRequest request) {
+        Map<String, String> query = query(request);
+        int pageNumber = Integer.parseInt(query.getOrDefault("pageNumber", "0"));
+        int pageSize = Integer.parseInt(query.getOrDefault("sizeNumber", "10"));
+        UUID userId = UUID.fromString(query.get("userId"));
+        StringJoiner content = new StringJoiner(",");
+        for (int i = 0; i < pageSize; i++) {
+            content.add(billJson(new UUID(userId.getLeastSignificantBits(), (long) pageNumber * pageSize + i), userId, i));
+        }
+        return Mono.just(page(content, pageNumber, pageSize, 10L * pageSize));
+    }
+
+    private String userJson(UUID externalId) {
+        return "{\"externalId\":\"" + externalId + "\",\"firstName\":\"Ivan\",\"lastName\":\"Petrov" + padding
+                + "\",\"email\":\"ivan.petrov@example.com\",\"creationDate\":\"" + CREATION_DATE + "\"}";
+    }
+
+    private String billJson(UUID externalId, UUID userId, int index) {
+        return "{\"externalId\":\"" + externalId + "\",\"userId\":\"" + userId + "\",\"amount\":" + (100 + index)
+                + ".5,\"paid\":" + (index % 2 == 0) + ",\"creationDate\":\"" + CREATION_DATE + "\""
+                + (padding.isEmpty() ? "" : ",\"comment\":\"" + padding + "\"") + "}";
+    }
+
+    private static String page(StringJoiner content, int pageNumber, int pageSize, long totalElements) {
+        return "{\"content\":[" + content + "],\"pageNumber\":" + pageNumber + ",\"pageSize\":" + pageSize
+                + ",\"totalElements\":" + totalElements + "}";
+    }
+
+    private static Map<String, String> query(HttpServerRequest request) {
+        Map<String, String> query = new TreeMap<>();
+        String uri = request.uri();
+        int start = uri.indexOf('?');
+        if (start < 0) {
+            return query;
+        }
+        for (String pair : uri.substring(start + 1).split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return query;
+    }
+}
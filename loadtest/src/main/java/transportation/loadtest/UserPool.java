@@ -0,0 +1,38 @@
+package transportation.loadtest;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Пользователи, которые есть в заглушке user-service: старшая половина UUID фиксирована,
+ * младшая - номер пользователя. С долей missingRatio выдаются несуществующие id.
+ */
+final class UserPool {
+
+    static final long MOST_SIGNIFICANT_BITS = 0x5f0c2d7e3b1a4a8eL;
+
+    private final int size;
+    private final double missingRatio;
+
+    UserPool(int size, double missingRatio) {
+        this.size = size;
+        this.missingRatio = missingRatio;
+    }
+
+    int size() {
+        return size;
+    }
+
+    UUID next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextDouble() < missingRatio
+                ? UUID.randomUUID()
+                : new UUID(MOST_SIGNIFICANT_BITS, random.nextInt(size));
+    }
+
+    boolean exists(UUID externalId) {
+        return externalId.getMostSignificantBits() == MOST_SIGNIFICANT_BITS
+                && externalId.getLeastSignificantBits() >= 0
+                && externalId.getLeastSignificantBits() < size;
+    }
+}
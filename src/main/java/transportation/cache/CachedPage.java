@@ -0,0 +1,19 @@
+package transportation.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Запись кэша страниц: тело ответа, ETag шлюза, ETag сервиса для условных запросов,
+ * момент загрузки и поколение ресурса, для которого страница была получена.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CachedPage {
+
+    private final Object body;
+    private final String eTag;
+    private final String upstreamETag;
+    private final long loadedAt;
+    private final long generation;
+}
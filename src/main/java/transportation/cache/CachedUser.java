@@ -0,0 +1,16 @@
+package transportation.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import users.UserResponseDto;
+
+/**
+ * Запись кэша пользователей: сам пользователь и момент его загрузки из user-service.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CachedUser {
+
+    private final UserResponseDto user;
+    private final long loadedAt;
+}
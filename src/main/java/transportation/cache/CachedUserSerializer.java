@@ -0,0 +1,53 @@
+package transportation.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+import users.UserResponseDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Сериализатор записей кэша для off-heap и дискового уровней:
+ * время загрузки записывается как long, сам пользователь - в бинарном формате Smile.
+ */
+public class CachedUserSerializer implements Serializer<CachedUser> {
+
+    private final ObjectMapper smileMapper;
+
+    public CachedUserSerializer(ObjectMapper smileMapper) {
+        this.smileMapper = smileMapper;
+    }
+
+    @Override
+    public ByteBuffer serialize(CachedUser object) throws SerializerException {
+        try {
+            byte[] user = smileMapper.writeValueAsBytes(object.getUser());
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + user.length);
+            buffer.putLong(object.getLoadedAt()).put(user).flip();
+            return buffer;
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    @Override
+    public CachedUser read(ByteBuffer binary) throws SerializerException {
+        long loadedAt = binary.getLong();
+        byte[] user = new byte[binary.remaining()];
+        binary.get(user);
+        try {
+            return new CachedUser(smileMapper.readValue(user, UserResponseDto.class), loadedAt);
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(CachedUser object, ByteBuffer binary) throws SerializerException {
+        CachedUser stored = read(binary);
+        return object.getLoadedAt() == stored.getLoadedAt() && Objects.equals(object.getUser(), stored.getUser());
+    }
+}
@@ -0,0 +1,124 @@
+package transportation.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш страниц списков (users/all, bills/all) по нормализованному набору параметров запроса.
+ * Свежая страница отдается из памяти, устаревшая перепроверяется в сервисе по ETag.
+ * Изменения через шлюз увеличивают поколение ресурса, и страницы прошлых поколений
+ * больше не отдаются без перепроверки.
+ */
+@Component
+public class PageCache {
+
+    private final Cache<String, CachedPage> cache;
+    private final ObjectMapper objectMapper;
+    private final long timeToLiveMillis;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<String, Mono<CachedPage>> inFlight = new ConcurrentHashMap<>();
+
+    public PageCache(
+            CacheManager ehCacheManager,
+            ObjectMapper objectMapper,
+            @Value("${cache.pages_cache}") String pagesCache,
+            @Value("${cache.pages_ttl_in_seconds}") long timeToLive) {
+        this.cache = ehCacheManager.getCache(pagesCache, String.class, CachedPage.class);
+        this.objectMapper = objectMapper;
+        this.timeToLiveMillis = Duration.ofSeconds(timeToLive).toMillis();
+    }
+
+    /**
+     * @param service сервис, которому принадлежит ресурс
+     * @param query   параметры запроса; пустые значения не входят в ключ
+     * @param fetcher запрос страницы в сервис с ETag предыдущего ответа (или null)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<ResponseEntity<T>> get(
+            String service, Map<String, ?> query, Function<String, Mono<ResponseEntity<T>>> fetcher) {
+        return Mono.defer(() -> {
+            String key = key(service, query);
+            long generation = generation(service).get();
+            return lookup(key)
+                    .flatMap(cached -> isFresh(cached, generation)
+                            ? Mono.just(cached)
+                            : load(key, generation, cached, fetcher))
+                    .switchIfEmpty(Mono.defer(() -> load(key, generation, null, fetcher)))
+                    .map(page -> ResponseEntity.ok()
+                            .eTag(page.getETag())
+                            .cacheControl(CacheControl.noCache())
+                            .body((T) page.getBody()));
+        });
+    }
+
+    public void invalidate(String service) {
+        generation(service).incrementAndGet();
+    }
+
+    private <T> Mono<CachedPage> load(
+            String key, long generation, CachedPage stale, Function<String, Mono<ResponseEntity<T>>> fetcher) {
+        return inFlight.computeIfAbsent(key + '#' + generation, flightKey -> fetcher
+                .apply(stale == null ? null : stale.getUpstreamETag())
+                .map(response -> response.getStatusCode() == HttpStatus.NOT_MODIFIED && stale != null
+                        ? new CachedPage(stale.getBody(), stale.getETag(), stale.getUpstreamETag(),
+                        System.currentTimeMillis(), generation)
+                        : new CachedPage(response.getBody(), eTag(response.getBody()), response.getHeaders().getETag(),
+                        System.currentTimeMillis(), generation))
+                .flatMap(page -> Mono.fromRunnable(() -> cache.put(key, page))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(page))
+                .doFinally(signal -> inFlight.remove(flightKey))
+                .cache());
+    }
+
+    private Mono<CachedPage> lookup(String key) {
+        return Mono.fromCallable(() -> Optional.ofNullable(cache.get(key)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private boolean isFresh(CachedPage cached, long generation) {
+        return cached.getGeneration() == generation
+                && System.currentTimeMillis() - cached.getLoadedAt() < timeToLiveMillis;
+    }
+
+    private AtomicLong generation(String service) {
+        return generations.computeIfAbsent(service, name -> new AtomicLong());
+    }
+
+    private String eTag(Object body) {
+        try {
+            return '"' + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(body)) + '"';
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to compute ETag", e);
+        }
+    }
+
+    private static String key(String service, Map<String, ?> query) {
+        StringBuilder key = new StringBuilder(service).append('?');
+        new TreeMap<>(query).forEach((name, value) -> {
+            if (value != null) {
+                key.append(name).append('=').append(value).append('&');
+            }
+        });
+        return key.toString();
+    }
+}
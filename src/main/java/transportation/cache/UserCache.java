@@ -0,0 +1,207 @@
+package transportation.cache;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import transportation.config.CacheProperties;
+import users.UserResponseDto;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Неблокирующая обертка над JCache-кэшем пользователей.
+ * Обращения к Ehcache выполняются вне event loop, одновременные загрузки одного
+ * пользователя объединяются в один запрос, а записи, близкие к истечению TTL,
+ * обновляются в фоне. Вытеснение отменяет запись идущей загрузки этого пользователя:
+ * загрузка, начатая до удаления, не вернет удаленного пользователя в кэш.
+ * Число одновременных загрузок ограничено bulkhead user-cache-load:
+ * загрузка сверх лимита не ждет очереди и завершается BulkheadFullException.
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+    private final Cache<UUID, CachedUser> cache;
+    private final long refreshAfterMillis;
+    private final Map<UUID, Load> inFlight = new ConcurrentHashMap<>();
+    private final Bulkhead loadBulkhead;
+    private final Timer loadSuccess;
+    private final Timer loadFailure;
+    private final Counter refreshAhead;
+
+    public UserCache(
+            CacheManager ehCacheManager,
+            MeterRegistry meterRegistry,
+            @Value("${cache.users_cache}") String userCache,
+            CacheProperties cacheProperties,
+            BulkheadRegistry bulkheadRegistry,
+            @Value("${cache.refresh_ahead_ratio}") double refreshAheadRatio) {
+        this.cache = ehCacheManager.getCache(userCache, UUID.class, CachedUser.class);
+        this.loadBulkhead = bulkheadRegistry.bulkhead("user-cache-load");
+        this.refreshAfterMillis = (long) (cacheProperties.cache(userCache).getTtl().toMillis() * refreshAheadRatio);
+        this.loadSuccess = loadTimer(meterRegistry, userCache, "success");
+        this.loadFailure = loadTimer(meterRegistry, userCache, "failure");
+        this.refreshAhead = Counter.builder("cache.refresh.ahead")
+                .tag("cache", userCache)
+                .register(meterRegistry);
+    }
+
+    public Mono<UserResponseDto> get(UUID externalId, Function<UUID, Mono<UserResponseDto>> loader) {
+        return lookup(externalId)
+                .map(cached -> serve(externalId, cached, loader))
+                .switchIfEmpty(Mono.defer(() -> load(externalId, loader)));
+    }
+
+    public Mono<Map<UUID, UserResponseDto>> getAllPresent(
+            Set<UUID> externalIds, Function<UUID, Mono<UserResponseDto>> loader) {
+        return Mono.fromCallable(() -> cache.getAll(externalIds))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(entries -> {
+                    Map<UUID, UserResponseDto> users = new HashMap<>(entries.size());
+                    entries.forEach((externalId, cached) -> users.put(externalId, serve(externalId, cached, loader)));
+                    return users;
+                });
+    }
+
+    public Mono<UserResponseDto> load(UUID externalId, Function<UUID, Mono<UserResponseDto>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(externalId, key -> new Load(key, loader)).result);
+    }
+
+    public Mono<UserResponseDto> put(UserResponseDto user) {
+        return Mono.fromRunnable(() -> cache.put(user.getExternalId(), new CachedUser(user, System.currentTimeMillis())))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(user);
+    }
+
+    public Mono<Void> evict(UUID externalId) {
+        return Mono.<Void>fromRunnable(() -> {
+                    Load load = inFlight.remove(externalId);
+                    if (load != null) {
+                        load.stale = true;
+                    }
+                    cache.remove(externalId);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Void> evictAll() {
+        return Mono.<Void>fromRunnable(() -> {
+                    inFlight.keySet().forEach(externalId -> {
+                        Load load = inFlight.remove(externalId);
+                        if (load != null) {
+                            load.stale = true;
+                        }
+                    });
+                    cache.removeAll();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Ключи кэша, не больше limit; обход блокирующий.
+     */
+    public List<UUID> keys(int limit) {
+        List<UUID> keys = new ArrayList<>();
+        for (Cache.Entry<UUID, CachedUser> entry : cache) {
+            if (keys.size() >= limit) {
+                break;
+            }
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    boolean containsKey(UUID externalId) {
+        return cache.containsKey(externalId);
+    }
+
+    private Mono<CachedUser> lookup(UUID externalId) {
+        return Mono.fromCallable(() -> cache.get(externalId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private UserResponseDto serve(UUID externalId, CachedUser cached, Function<UUID, Mono<UserResponseDto>> loader) {
+        if (isDueForRefresh(cached)) {
+            refreshAhead.increment();
+            load(externalId, loader).subscribe(
+                    user -> { },
+                    error -> log.warn("Refresh-ahead of user {} failed", externalId, error));
+        }
+        return cached.getUser();
+    }
+
+    private Mono<UserResponseDto> limited(UUID externalId, Function<UUID, Mono<UserResponseDto>> loader) {
+        return Mono.defer(() -> {
+            if (!loadBulkhead.tryAcquirePermission()) {
+                return Mono.error(BulkheadFullException.createBulkheadFullException(loadBulkhead));
+            }
+            return timed(Mono.defer(() -> loader.apply(externalId)))
+                    .doFinally(signal -> loadBulkhead.onComplete());
+        });
+    }
+
+    private Mono<UserResponseDto> timed(Mono<UserResponseDto> load) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return load
+                    .doOnSuccess(user -> loadSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> loadFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static Timer loadTimer(MeterRegistry meterRegistry, String cache, String result) {
+        return Timer.builder("cache.load")
+                .description("Загрузка записей кэша из user-service")
+                .tag("cache", cache)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private boolean isDueForRefresh(CachedUser cached) {
+        return System.currentTimeMillis() - cached.getLoadedAt() >= refreshAfterMillis;
+    }
+
+    /**
+     * Загрузка одного пользователя, общая для всех, кто запросил его одновременно.
+     * Вытеснение помечает загрузку устаревшей. Метка проверяется после записи в кэш,
+     * а вытеснение ставит ее до удаления, поэтому запись устаревшей загрузки всегда удаляется.
+     */
+    private final class Load {
+
+        private final Mono<UserResponseDto> result;
+        private volatile boolean stale;
+
+        private Load(UUID externalId, Function<UUID, Mono<UserResponseDto>> loader) {
+            this.result = limited(externalId, loader)
+                    .flatMap(user -> Mono.fromRunnable(() -> {
+                                cache.put(externalId, new CachedUser(user, System.currentTimeMillis()));
+                                if (stale) {
+                                    cache.remove(externalId);
+                                }
+                            })
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .thenReturn(user))
+                    .doFinally(signal -> inFlight.remove(externalId, this))
+                    .cache();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package transportation.cache;
+
+/**
+ * Что шлюзу известно о существовании пользователя без обращения в user-service.
+ */
+public enum UserExistence {
+    PRESENT,
+    ABSENT,
+    UNKNOWN
+}
@@ -0,0 +1,58 @@
+package transportation.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.UUID;
+
+/**
+ * Индекс существования пользователей: пользователь из кэша считается существующим,
+ * пользователь, на которого user-service недавно ответил 404, - отсутствующим.
+ * Об остальных известно только то, что ответит user-service.
+ */
+@Component
+public class UserExistenceIndex {
+
+    private final UserCache userCache;
+    private final Cache<UUID, Boolean> absentUsers;
+
+    public UserExistenceIndex(
+            UserCache userCache,
+            CacheManager ehCacheManager,
+            @Value("${cache.absent_users_cache}") String absentUsersCache) {
+        this.userCache = userCache;
+        this.absentUsers = ehCacheManager.getCache(absentUsersCache, UUID.class, Boolean.class);
+    }
+
+    public Mono<UserExistence> check(UUID externalId) {
+        return Mono.fromCallable(() -> {
+                    if (userCache.containsKey(externalId)) {
+                        return UserExistence.PRESENT;
+                    }
+                    return absentUsers.containsKey(externalId) ? UserExistence.ABSENT : UserExistence.UNKNOWN;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Отсутствие, подтвержденное ответом 404 от user-service.
+     */
+    public Mono<Boolean> isAbsent(UUID externalId) {
+        return Mono.fromCallable(() -> absentUsers.containsKey(externalId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Void> markAbsent(UUID externalId) {
+        return Mono.<Void>fromRunnable(() -> absentUsers.put(externalId, Boolean.TRUE))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Void> markPresent(UUID externalId) {
+        return Mono.<Void>fromRunnable(() -> absentUsers.remove(externalId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,32 @@
+package transportation.cache;
+
+import org.ehcache.spi.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Сериализует ключи кэша в 16 байт вместо стандартной java-сериализации.
+ */
+public class UuidSerializer implements Serializer<UUID> {
+
+    public UuidSerializer(ClassLoader classLoader) {
+    }
+
+    @Override
+    public ByteBuffer serialize(UUID object) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+        buffer.putLong(object.getMostSignificantBits()).putLong(object.getLeastSignificantBits()).flip();
+        return buffer;
+    }
+
+    @Override
+    public UUID read(ByteBuffer binary) {
+        return new UUID(binary.getLong(), binary.getLong());
+    }
+
+    @Override
+    public boolean equals(UUID object, ByteBuffer binary) {
+        return object.equals(read(binary));
+    }
+}
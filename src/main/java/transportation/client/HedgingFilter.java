@@ -0,0 +1,102 @@
+package transportation.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import transportation.config.ServicesProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Хеджирует GET-запросы к выбранным маршрутам: если первая попытка не ответила за
+ * задержку, равную перцентилю наблюдаемых задержек маршрута, отправляется вторая,
+ * и используется первый пришедший ответ. Проигравшая попытка отменяется, а если ее ответ
+ * все же успел прийти, его тело освобождается, чтобы не держать соединение.
+ * Число вторых попыток ограничено общим бюджетом. Ошибка первой попытки не ждет вторую.
+ * Отмененная попытка тоже попадает в гистограмму: время до отмены - нижняя граница ее
+ * задержки, и без нее медленные ответы, проигравшие гонку, не сдвигали бы перцентиль.
+ */
+public class HedgingFilter implements ExchangeFilterFunction {
+
+    private final RetryBudget hedgeBudget;
+    private final Set<String> routes;
+    private final double percentile;
+    private final long minDelayMicros;
+    private final long maxDelayMicros;
+    private final long minSamples;
+    private final long maxSamples;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public HedgingFilter(ServicesProperties.Hedging properties, RetryBudget hedgeBudget) {
+        this.hedgeBudget = hedgeBudget;
+        this.routes = Set.copyOf(properties.getRoutes());
+        this.percentile = properties.getPercentile();
+        this.minDelayMicros = properties.getMinDelay().toNanos() / 1000;
+        this.maxDelayMicros = properties.getMaxDelay().toNanos() / 1000;
+        this.minSamples = properties.getMinSamples();
+        this.maxSamples = properties.getMaxSamples();
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        String route = UpstreamExchangeTagsProvider.uriTemplate(request);
+        if (!routes.contains(route)) {
+            return next.exchange(request);
+        }
+        LatencyHistogram histogram = histograms.computeIfAbsent(route, key -> new LatencyHistogram(maxSamples));
+        hedgeBudget.onRequest();
+        long delayMicros = histogram.percentileMicros(percentile, minSamples);
+        if (delayMicros < 0) {
+            return timed(next.exchange(request), histogram);
+        }
+        return Mono.defer(() -> {
+            AtomicBoolean answered = new AtomicBoolean();
+            Mono<ClientResponse> primary = claim(timed(next.exchange(request), histogram), answered)
+                    .onErrorResume(error -> answered.compareAndSet(false, true) ? Mono.error(error) : Mono.never());
+            Mono<ClientResponse> hedge = Mono.delay(Duration.ofNanos(
+                            Math.min(maxDelayMicros, Math.max(minDelayMicros, delayMicros)) * 1000))
+                    .flatMap(tick -> hedgeBudget.tryRetry()
+                            ? claim(timed(next.exchange(request), histogram), answered)
+                            : Mono.<ClientResponse>never())
+                    .onErrorResume(error -> Mono.never());
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /**
+     * Пропускает ответ, только если он пришел первым; тело опоздавшего ответа освобождается.
+     * Ответ, отброшенный при отмене попытки, тоже освобождается.
+     */
+    private static Mono<ClientResponse> claim(Mono<ClientResponse> attempt, AtomicBoolean answered) {
+        return attempt
+                .flatMap(response -> answered.compareAndSet(false, true)
+                        ? Mono.just(response)
+                        : response.releaseBody().then(Mono.<ClientResponse>never()))
+                .doOnDiscard(ClientResponse.class, response -> response.releaseBody().subscribe());
+    }
+
+    private static Mono<ClientResponse> timed(Mono<ClientResponse> exchange, LatencyHistogram histogram) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    histogram.record(System.nanoTime() - start);
+                }
+            };
+            return exchange
+                    .doOnNext(response -> record.run())
+                    .doOnCancel(record);
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package transportation.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Логарифмическая гистограмма задержек в микросекундах: четыре корзины на каждую
+ * степень двойки, относительная погрешность не больше 19%. Когда число наблюдений
+ * достигает maxSamples, все счетчики делятся пополам, поэтому перцентили следуют
+ * за текущей задержкой, а не за всей историей.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final long maxSamples;
+
+    LatencyHistogram(long maxSamples) {
+        this.maxSamples = maxSamples;
+    }
+
+    void record(long latencyNanos) {
+        counts.incrementAndGet(bucket(Math.max(1, latencyNanos / 1000)));
+        if (total.incrementAndGet() >= maxSamples) {
+            decay();
+        }
+    }
+
+    /**
+     * @return задержка перцентиля в микросекундах или -1, если наблюдений меньше minSamples
+     */
+    long percentileMicros(double percentile, long minSamples) {
+        long count = total.get();
+        if (count < minSamples) {
+            return -1;
+        }
+        long threshold = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= threshold) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private synchronized void decay() {
+        if (total.get() < maxSamples) {
+            return;
+        }
+        long remaining = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long halved = counts.get(i) / 2;
+            counts.set(i, halved);
+            remaining += halved;
+        }
+        total.set(remaining);
+    }
+
+    private static int bucket(long micros) {
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = exponent < 2
+                ? 0
+                : (int) ((micros >>> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, exponent * SUB_BUCKETS + subBucket);
+    }
+
+    private static long upperBound(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        int subBucket = bucket % SUB_BUCKETS;
+        if (exponent >= 62) {
+            return Long.MAX_VALUE;
+        }
+        return exponent < 2
+                ? 1L << (exponent + 1)
+                : (1L << exponent) + ((long) (subBucket + 1) << (exponent - 2));
+    }
+}
@@ -0,0 +1,131 @@
+package transportation.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import transportation.config.ServicesProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Защищает вызовы одного сервиса: circuit breaker, ограничение параллельных вызовов
+ * и повторы идемпотентных GET-запросов с джиттером в пределах бюджета повторов.
+ * Ответы 5xx считаются ошибкой, чтобы их учитывал circuit breaker.
+ */
+public class ResilienceFilter implements ExchangeFilterFunction {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final RetryBudget retryBudget;
+    private final Retry retry;
+
+    public ResilienceFilter(CircuitBreaker circuitBreaker, Bulkhead bulkhead, ServicesProperties.Retry properties) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.retryBudget = new RetryBudget(properties.getBudgetRatio(), properties.getBudgetReserve());
+        this.retry = Retry.backoff(properties.getMaxRetries(), properties.getBackoff())
+                .maxBackoff(properties.getMaxBackoff())
+                .jitter(properties.getJitter())
+                .filter(error -> isRetryable(error) && retryBudget.tryRetry())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        Mono<ClientResponse> call = Mono.defer(() -> exchange(request, next));
+        retryBudget.onRequest();
+        return request.method() == HttpMethod.GET ? call.retryWhen(retry) : call;
+    }
+
+    /**
+     * Разрешения circuit breaker и bulkhead держатся до конца тела ответа, а не до заголовков:
+     * иначе потоковые выгрузки и страницы не учитываются в ограничении параллельных вызовов,
+     * а длительность медленного вызова не включает передачу тела.
+     */
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return Mono.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            return Mono.error(BulkheadFullException.createBulkheadFullException(bulkhead));
+        }
+        Permit permit = new Permit();
+        return next.exchange(request)
+                .flatMap(response -> response.rawStatusCode() >= 500
+                        ? response.createException().flatMap(Mono::error)
+                        : Mono.just(permit.holdUntilBodyEnd(response)))
+                .doOnError(permit::failed)
+                .doOnCancel(permit::cancelledBeforeResponse);
+    }
+
+    private final class Permit {
+
+        private static final int PENDING = 0;
+        private static final int RESPONDED = 1;
+        private static final int RELEASED = 2;
+
+        private final long start = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        ClientResponse holdUntilBodyEnd(ClientResponse response) {
+            state.set(RESPONDED);
+            return response.mutate()
+                    .body(body -> body
+                            .doOnComplete(this::succeeded)
+                            .doOnError(this::failed)
+                            .doOnCancel(this::cancelled))
+                    .build();
+        }
+
+        void succeeded() {
+            if (release()) {
+                circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void failed(Throwable error) {
+            if (release()) {
+                circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, error);
+            }
+        }
+
+        void cancelled() {
+            if (release()) {
+                circuitBreaker.releasePermission();
+            }
+        }
+
+        void cancelledBeforeResponse() {
+            if (state.compareAndSet(PENDING, RELEASED)) {
+                bulkhead.onComplete();
+                circuitBreaker.releasePermission();
+            }
+        }
+
+        private boolean release() {
+            if (state.getAndSet(RELEASED) == RELEASED) {
+                return false;
+            }
+            bulkhead.onComplete();
+            return true;
+        }
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        return error instanceof WebClientRequestException
+                || (error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getRawStatusCode() >= 500);
+    }
+}
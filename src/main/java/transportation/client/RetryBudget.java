@@ -0,0 +1,38 @@
+package transportation.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бюджет повторов: каждый запрос пополняет баланс на долю повтора, каждый повтор
+ * списывает целый повтор. Так доля повторов не превышает заданного процента от
+ * трафика, а при малом трафике доступен небольшой резерв.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    public RetryBudget(double retryRatio, int reserve) {
+        this.depositPerRequest = (long) (retryRatio * SCALE);
+        this.maxBalance = Math.max(reserve, 1) * SCALE * 10;
+        this.balance = new AtomicLong(reserve * SCALE);
+    }
+
+    public void onRequest() {
+        balance.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(maxBalance, current + deposit));
+    }
+
+    public boolean tryRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package transportation.client;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.reactive.client.WebClientExchangeTags;
+import org.springframework.boot.actuate.metrics.web.reactive.client.WebClientExchangeTagsProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import java.util.regex.Pattern;
+
+/**
+ * Теги метрики http.client.requests: к стандартным добавляется имя сервиса,
+ * а идентификаторы в пути заменяются шаблоном, чтобы не плодить временные ряды.
+ */
+@Component
+public class UpstreamExchangeTagsProvider implements WebClientExchangeTagsProvider {
+
+    public static final String UPSTREAM_ATTRIBUTE = UpstreamExchangeTagsProvider.class.getName() + ".upstream";
+
+    private static final Pattern UUID_SEGMENT = Pattern.compile(
+            "/[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    @Override
+    public Iterable<Tag> tags(ClientRequest request, ClientResponse response, Throwable throwable) {
+        return Tags.of(
+                WebClientExchangeTags.method(request),
+                Tag.of("uri", uriTemplate(request)),
+                WebClientExchangeTags.status(response, throwable),
+                WebClientExchangeTags.outcome(response),
+                Tag.of("upstream", (String) request.attribute(UPSTREAM_ATTRIBUTE).orElse("none")));
+    }
+
+    public static String uriTemplate(ClientRequest request) {
+        return UUID_SEGMENT.matcher(request.url().getPath()).replaceAll("/{externalId}");
+    }
+}
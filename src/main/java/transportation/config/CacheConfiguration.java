@@ -1,20 +1,30 @@
 package transportation.config;
 
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.ExpiryPolicyBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import users.UserResponseDto;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import transportation.cache.CachedPage;
+import transportation.cache.CachedUser;
+import transportation.cache.CachedUserSerializer;
+import transportation.cache.UuidSerializer;
 
 import javax.cache.CacheManager;
 import javax.cache.Caching;
-import javax.cache.spi.CachingProvider;
-import java.time.Duration;
+import java.io.File;
 import java.util.UUID;
 
 @Configuration
@@ -23,28 +33,100 @@ public class CacheConfiguration {
 
     @Bean
     public CacheManager ehCacheManager(
-            @Value("${cache.heap_in_mb}") long cacheHeapSize,
-            @Value("${cache.ttl_in_minutes}") long timeToLive,
-            @Value("${cache.users_cache}") String userCache) {
-        CachingProvider provider = Caching.getCachingProvider();
-        CacheManager cacheManager = provider.getCacheManager();
+            CacheProperties cacheProperties,
+            @Value("${cache.users_cache}") String userCache,
+            @Value("${cache.absent_users_cache}") String absentUsersCache,
+            @Value("${cache.pages_cache}") String pagesCache) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        DefaultConfiguration configuration = cacheProperties.diskEnabled()
+                ? new DefaultConfiguration(provider.getDefaultClassLoader(),
+                new DefaultPersistenceConfiguration(new File(cacheProperties.getDiskDirectory())))
+                : new DefaultConfiguration(provider.getDefaultClassLoader());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), configuration);
+
+        CacheProperties.Tiers users = cacheProperties.cache(userCache);
+        CacheProperties.Tiers absentUsers = cacheProperties.cache(absentUsersCache);
+        CacheProperties.Tiers pages = cacheProperties.cache(pagesCache);
 
         cacheManager.createCache(
                 userCache,
                 Eh107Configuration.fromEhcacheCacheConfiguration(
                         CacheConfigurationBuilder.newCacheConfigurationBuilder(
                                         UUID.class,
-                                        UserResponseDto.class,
-                                        ResourcePoolsBuilder.newResourcePoolsBuilder()
-                                                .heap(cacheHeapSize, MemoryUnit.MB)
+                                        CachedUser.class,
+                                        resourcePools(users)
+                                )
+                                .withKeySerializer(UuidSerializer.class)
+                                .withValueSerializer(new CachedUserSerializer(
+                                        Jackson2ObjectMapperBuilder.smile().build()))
+                                .withExpiry(
+                                        ExpiryPolicyBuilder.timeToLiveExpiration(
+                                                users.getTtl()
+                                        )
+                                )
+                )
+        );
+        cacheManager.enableStatistics(userCache, true);
+
+        cacheManager.createCache(
+                absentUsersCache,
+                Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                                        UUID.class,
+                                        Boolean.class,
+                                        resourcePools(absentUsers)
+                                )
+                                .withExpiry(
+                                        ExpiryPolicyBuilder.timeToLiveExpiration(
+                                                absentUsers.getTtl()
+                                        )
+                                )
+                )
+        );
+
+        cacheManager.createCache(
+                pagesCache,
+                Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                                        String.class,
+                                        CachedPage.class,
+                                        resourcePools(pages)
                                 )
                                 .withExpiry(
-                                        ExpiryPolicyBuilder.timeToIdleExpiration(
-                                                Duration.ofMinutes(timeToLive)
+                                        ExpiryPolicyBuilder.timeToLiveExpiration(
+                                                pages.getTtl()
                                         )
                                 )
                 )
         );
+        cacheManager.enableStatistics(pagesCache, true);
         return cacheManager;
     }
+
+    private static ResourcePoolsBuilder resourcePools(CacheProperties.Tiers tiers) {
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+                .heap(tiers.getHeap(), EntryUnit.ENTRIES);
+        if (tiers.offheapEnabled()) {
+            resourcePools = resourcePools.offheap(tiers.getOffheap().toMegabytes(), MemoryUnit.MB);
+        }
+        if (tiers.diskEnabled()) {
+            resourcePools = resourcePools.disk(tiers.getDisk().toMegabytes(), MemoryUnit.MB, true);
+        }
+        return resourcePools;
+    }
+
+    @Bean
+    public MeterBinder userCacheMetrics(
+            CacheManager ehCacheManager,
+            @Value("${cache.users_cache}") String userCache) {
+        return new JCacheMetrics<>(ehCacheManager.getCache(userCache, UUID.class, CachedUser.class), Tags.empty());
+    }
+
+    @Bean
+    public MeterBinder pageCacheMetrics(
+            CacheManager ehCacheManager,
+            @Value("${cache.pages_cache}") String pagesCache) {
+        return new JCacheMetrics<>(ehCacheManager.getCache(pagesCache, String.class, CachedPage.class), Tags.empty());
+    }
 }
@@ -0,0 +1,60 @@
+package transportation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Уровни хранения и TTL каждого кэша Ehcache: cache.caches.&lt;имя кэша&gt;.
+ */
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    /**
+     * Каталог дискового уровня, общий для всех кэшей с заданным disk.
+     */
+    private String diskDirectory = "/var/cache/transportation-admin-api-gateway";
+    private Map<String, Tiers> caches = new HashMap<>();
+
+    public Tiers cache(String name) {
+        Tiers tiers = caches.get(name);
+        if (tiers == null) {
+            throw new IllegalStateException("No cache.caches." + name + " configuration");
+        }
+        return tiers;
+    }
+
+    public boolean diskEnabled() {
+        return caches.values().stream().anyMatch(Tiers::diskEnabled);
+    }
+
+    @Data
+    public static class Tiers {
+        /**
+         * Число записей в куче.
+         */
+        private long heap;
+        /**
+         * Размер off-heap уровня; не задан - уровня нет.
+         */
+        private DataSize offheap;
+        /**
+         * Размер дискового уровня; не задан - уровня нет.
+         */
+        private DataSize disk;
+        private Duration ttl;
+
+        public boolean offheapEnabled() {
+            return offheap != null && offheap.toBytes() > 0;
+        }
+
+        public boolean diskEnabled() {
+            return disk != null && disk.toBytes() > 0;
+        }
+    }
+}
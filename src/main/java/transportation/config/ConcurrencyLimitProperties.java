@@ -0,0 +1,50 @@
+package transportation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Адаптивные лимиты одновременных запросов по группам маршрутов.
+ */
+@Data
+@ConfigurationProperties(prefix = "concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private Map<String, Group> groups = new HashMap<>();
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Group {
+        private int initialLimit = 100;
+        private int minLimit = 10;
+        private int maxLimit = 500;
+        private Duration latencyThreshold = Duration.ofMillis(500);
+        private double backoffRatio = 0.9;
+        private double lowPriorityShare = 0.5;
+    }
+
+    /**
+     * Маршрут; метод не указан - подходит любой. Применяется первый подходящий маршрут.
+     */
+    @Data
+    public static class Route {
+        private HttpMethod method;
+        private String path;
+        private String group;
+        private Priority priority = Priority.HIGH;
+    }
+
+    public enum Priority {
+        HIGH,
+        LOW
+    }
+}
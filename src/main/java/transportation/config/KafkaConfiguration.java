@@ -0,0 +1,52 @@
+package transportation.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(KafkaProperties.class)
+@ConditionalOnProperty(prefix = "kafka.user-events", name = "enabled", havingValue = "true")
+public class KafkaConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, String> userEventSender(KafkaProperties kafkaProperties) {
+        Map<String, Object> properties = new HashMap<>(kafkaProperties.getProperties());
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return KafkaSender.create(SenderOptions.create(properties));
+    }
+
+    /**
+     * Каждый экземпляр шлюза читает все разделы топика сам, без группы потребителей
+     * и без фиксации смещений, и только новые события: кэш при старте пуст, старые
+     * события ему не нужны. Перезапуски не оставляют на брокере брошенных групп.
+     * Разделы назначает UserEventListener.
+     */
+    @Bean
+    public ReceiverOptions<String, String> userEventReceiverOptions(KafkaProperties kafkaProperties) {
+        Map<String, Object> properties = new HashMap<>(kafkaProperties.getProperties());
+        properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        return ReceiverOptions.<String, String>create(properties)
+                .commitInterval(Duration.ZERO)
+                .commitBatchSize(0)
+                .addAssignListener(partitions -> partitions.forEach(ReceiverPartition::seekToEnd));
+    }
+}
@@ -0,0 +1,26 @@
+package transportation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки клиентов Kafka: общие свойства клиента и топик событий об изменении пользователей.
+ */
+@Data
+@ConfigurationProperties(prefix = "kafka")
+public class KafkaProperties {
+
+    private Map<String, String> properties = new HashMap<>();
+    private UserEvents userEvents = new UserEvents();
+
+    @Data
+    public static class UserEvents {
+        private boolean enabled = false;
+        private String topic = "user-events";
+        private Duration publishTimeout = Duration.ofSeconds(1);
+    }
+}
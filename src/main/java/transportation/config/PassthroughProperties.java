@@ -0,0 +1,29 @@
+package transportation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Маршруты, которые проксируются в сервисы без разбора тела запроса и ответа.
+ * Тело такого запроса не проходит валидацию контроллера, поэтому изменяющие маршруты
+ * по умолчанию выключены.
+ */
+@Data
+@ConfigurationProperties(prefix = "passthrough")
+public class PassthroughProperties {
+
+    private String stripPrefix = "/v1/";
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private HttpMethod method;
+        private String path;
+        private String service;
+        private boolean enabled = true;
+    }
+}
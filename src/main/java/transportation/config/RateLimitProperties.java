@@ -0,0 +1,33 @@
+package transportation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ограничение частоты запросов по клиентам. Клиент определяется заголовком clientHeader,
+ * без него - адресом подключения. maxClients ограничивает число отслеживаемых клиентов
+ * на маршрут; остальные делят общий бакет.
+ */
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private String clientHeader = "X-Api-Key";
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private int maxClients = 10000;
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private HttpMethod method;
+        private String path;
+        private double permitsPerSecond;
+        private int burst = 1;
+    }
+}
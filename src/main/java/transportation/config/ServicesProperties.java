@@ -0,0 +1,77 @@
+package transportation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки HTTP-клиентов к сервисам платформы, ключ - имя сервиса.
+ */
+@Data
+@ConfigurationProperties(prefix = "services")
+public class ServicesProperties {
+
+    private Map<String, Client> clients = new HashMap<>();
+    private Hedging hedging = new Hedging();
+
+    public Client client(String name) {
+        return clients.getOrDefault(name, new Client());
+    }
+
+    @Data
+    public static class Client {
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 200;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration responseTimeout = Duration.ofSeconds(10);
+        private boolean http2 = false;
+        private boolean compression = true;
+        private WireFormat wireFormat = WireFormat.JSON;
+        private Retry retry = new Retry();
+    }
+
+    @Data
+    public static class Retry {
+        private int maxRetries = 2;
+        private Duration backoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofMillis(500);
+        private double jitter = 0.5;
+        private double budgetRatio = 0.1;
+        private int budgetReserve = 10;
+    }
+
+    /**
+     * Хеджирование GET-запросов: общий бюджет на оба сервиса, маршруты - шаблоны пути
+     * в сервисе, как в теге uri метрики http.client.requests.
+     */
+    @Data
+    public static class Hedging {
+        private boolean enabled = false;
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(10);
+        private Duration maxDelay = Duration.ofSeconds(1);
+        private int minSamples = 100;
+        private int maxSamples = 10000;
+        private double budgetRatio = 0.05;
+        private int budgetReserve = 10;
+        private List<String> routes = new ArrayList<>();
+    }
+
+    /**
+     * Предпочитаемый формат ответов сервиса; JSON остается запасным вариантом в Accept.
+     */
+    public enum WireFormat {
+        JSON,
+        SMILE,
+        CBOR
+    }
+}
@@ -4,26 +4,48 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.netty.channel.ChannelOption;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
 import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.config.EnableWebFlux;
 import org.springframework.web.reactive.config.WebFluxConfigurer;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.web.util.UriBuilderFactory;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import transportation.client.HedgingFilter;
+import transportation.client.ResilienceFilter;
+import transportation.client.RetryBudget;
+import transportation.client.UpstreamExchangeTagsProvider;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
 
 
 @Configuration
 @RequiredArgsConstructor
 @EnableWebFlux
+@EnableConfigurationProperties({ServicesProperties.class, PassthroughProperties.class, ConcurrencyLimitProperties.class,
+        RateLimitProperties.class, CacheProperties.class})
 public class WebClientConfiguration implements WebFluxConfigurer {
     @Value("${services.user-service-url}")
     private String userServiceUrl;
@@ -31,19 +53,42 @@ public class WebClientConfiguration implements WebFluxConfigurer {
     private String billsServiceUrl;
 
     private final ObjectMapper mapper;
+    private final WebClient.Builder webClientBuilder;
+    private final ServicesProperties servicesProperties;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final List<ConnectionProvider> connectionProviders = new ArrayList<>();
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
     private ExchangeStrategies exchangeStrategies;
+    private RetryBudget hedgeBudget;
 
     @PostConstruct
     public void init() {
-        mapper.enable(SerializationFeature.WRITE_DATES_WITH_ZONE_ID);
-        mapper.configure(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE, false);
-        mapper.registerModule(new JavaTimeModule());
+        configure(mapper);
+        configure(smileMapper);
+        configure(cborMapper);
         exchangeStrategies = ExchangeStrategies.builder()
-                .codecs(configurer -> configurer.defaultCodecs()
-                        .jackson2JsonDecoder(new Jackson2JsonDecoder(mapper)))
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(mapper));
+                    configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE));
+                    configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+                })
                 .build();
     }
 
+    /**
+     * Ответы шлюза в Smile для клиентов, которые запрашивают его в Accept.
+     * CBOR только читается из сервисов: Jackson2CborEncoder не умеет писать потоком.
+     */
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE));
+    }
+
     @Bean
     public UriBuilderFactory uriBuilder() {
         DefaultUriBuilderFactory factory = new DefaultUriBuilderFactory();
@@ -51,21 +96,99 @@ public class WebClientConfiguration implements WebFluxConfigurer {
         return factory;
     }
 
+    @PreDestroy
+    public void disposeConnectionProviders() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
     @Bean
     public WebClient userServiceClient() {
-        return WebClient.builder()
+        return webClientBuilder.clone()
                 .baseUrl(userServiceUrl)
+                .defaultRequest(request -> request.attribute(UpstreamExchangeTagsProvider.UPSTREAM_ATTRIBUTE, "user-service"))
+                .clientConnector(connector("user-service"))
+                .filters(filters -> {
+                    if (servicesProperties.getHedging().isEnabled()) {
+                        filters.add(hedging());
+                    }
+                    filters.add(resilience("user-service"));
+                })
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.ACCEPT, accept("user-service"))
                 .exchangeStrategies(exchangeStrategies)
                 .build();
     }
 
     @Bean
     public WebClient billServiceClient() {
-        return WebClient.builder()
+        return webClientBuilder.clone()
                 .baseUrl(billsServiceUrl)
+                .defaultRequest(request -> request.attribute(UpstreamExchangeTagsProvider.UPSTREAM_ATTRIBUTE, "bills-service"))
+                .clientConnector(connector("bills-service"))
+                .filters(filters -> {
+                    if (servicesProperties.getHedging().isEnabled()) {
+                        filters.add(hedging());
+                    }
+                    filters.add(resilience("bills-service"));
+                })
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.ACCEPT, accept("bills-service"))
                 .exchangeStrategies(exchangeStrategies)
                 .build();
     }
+
+    private String accept(String name) {
+        switch (servicesProperties.client(name).getWireFormat()) {
+            case SMILE:
+                return "application/x-jackson-smile, application/json;q=0.9";
+            case CBOR:
+                return "application/cbor, application/json;q=0.9";
+            default:
+                return MediaType.APPLICATION_JSON_VALUE;
+        }
+    }
+
+    private void configure(ObjectMapper objectMapper) {
+        objectMapper.enable(SerializationFeature.WRITE_DATES_WITH_ZONE_ID);
+        objectMapper.configure(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE, false);
+        objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    private HedgingFilter hedging() {
+        if (hedgeBudget == null) {
+            ServicesProperties.Hedging hedging = servicesProperties.getHedging();
+            hedgeBudget = new RetryBudget(hedging.getBudgetRatio(), hedging.getBudgetReserve());
+        }
+        return new HedgingFilter(servicesProperties.getHedging(), hedgeBudget);
+    }
+
+    private ResilienceFilter resilience(String name) {
+        return new ResilienceFilter(
+                circuitBreakerRegistry.circuitBreaker(name),
+                bulkheadRegistry.bulkhead(name),
+                servicesProperties.client(name).getRetry());
+    }
+
+    private ReactorClientHttpConnector connector(String name) {
+        ServicesProperties.Client client = servicesProperties.client(name);
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(client.getMaxConnections())
+                .pendingAcquireMaxCount(client.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(client.getPendingAcquireTimeout())
+                .maxIdleTime(client.getMaxIdleTime())
+                .maxLifeTime(client.getMaxLifeTime())
+                .evictInBackground(client.getEvictInBackground())
+                .metrics(true)
+                .build();
+        connectionProviders.add(connectionProvider);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) client.getConnectTimeout().toMillis())
+                .responseTimeout(client.getResponseTimeout())
+                .compress(client.isCompression());
+        if (client.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return new ReactorClientHttpConnector(httpClient);
+    }
 }
@@ -4,6 +4,7 @@ import bill.BillPageResponse;
 import bill.BillPostDto;
 import bill.BillPutDto;
 import bill.BillResponseDto;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,11 +12,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import transportation.cache.PageCache;
+import transportation.exception.UserNotFoundException;
+import transportation.service.BillImportResult;
+import transportation.service.BillImporter;
+import transportation.service.BillService;
+import transportation.service.PageExporter;
 import transportation.service.UserService;
+import users.UserResponseDto;
+
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import java.util.UUID;
@@ -27,6 +38,10 @@ public class BillsController {
 
     private final WebClient billServiceClient;
     private final UserService userService;
+    private final PageExporter pageExporter;
+    private final PageCache pageCache;
+    private final BillImporter billImporter;
+    private final BillService billService;
 
     @Operation(summary = "Добавить платеж")
     @ApiResponses(value = {
@@ -37,16 +52,31 @@ public class BillsController {
     })
     @PostMapping("/add")
     public Mono<BillResponseDto> add(@Valid @RequestBody BillPostDto billPostDto) {
-        return userService.getUser(billPostDto.getUserId())
-                .flatMap(result ->
-                        billServiceClient.post()
-                                .uri(uriBuilder -> uriBuilder
-                                        .path("bills/add")
-                                        .build())
-                                .accept(MediaType.APPLICATION_JSON)
-                                .body(BodyInserters.fromValue(billPostDto))
-                                .retrieve()
-                                .bodyToMono(BillResponseDto.class));
+        UUID userId = billPostDto.getUserId();
+        return userService.getUserExistence(userId)
+                .flatMap(existence -> {
+                    switch (existence) {
+                        case PRESENT:
+                            return postBill(billPostDto);
+                        case ABSENT:
+                            return Mono.error(new UserNotFoundException(userId));
+                        default:
+                            return existingUser(userId).flatMap(user -> postBill(billPostDto));
+                    }
+                });
+    }
+
+    @Operation(summary = "Импортировать платежи потоком")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запрос выполнен успешно", content = @Content(schema = @Schema(implementation = BillImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибочный запрос"),
+            @ApiResponse(responseCode = "503", description = "Сервис временно недоступен")
+    })
+    @PostMapping(value = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BillImportResult> importBills(@RequestBody Flux<BillPostDto> bills) {
+        return billImporter.importBills(bills);
     }
 
     @Operation(summary = "Удалить платеж по id")
@@ -58,13 +88,7 @@ public class BillsController {
     })
     @DeleteMapping("/{externalId}/delete")
     public Mono<String> delete(@PathVariable UUID externalId) {
-        return billServiceClient.delete()
-                .uri(uriBuilder -> uriBuilder
-                        .path("bills/{externalId}/delete")
-                        .build(externalId))
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(String.class);
+        return deleteBill(externalId);
     }
 
     @Operation(summary = "Обновить данные о платеже")
@@ -83,7 +107,8 @@ public class BillsController {
                 .accept(MediaType.APPLICATION_JSON)
                 .body(BodyInserters.fromValue(billPutDto))
                 .retrieve()
-                .bodyToMono(BillResponseDto.class);
+                .bodyToMono(BillResponseDto.class)
+                .doFinally(signal -> pageCache.invalidate("bills-service"));
     }
 
     @Operation(summary = "Востановить платеж по id")
@@ -100,25 +125,43 @@ public class BillsController {
                         .path("bills/{externalId}")
                         .build(externalId))
                 .retrieve()
-                .bodyToMono(BillResponseDto.class);
+                .bodyToMono(BillResponseDto.class)
+                .doFinally(signal -> pageCache.invalidate("bills-service"));
     }
 
     @Operation(summary = "Получить список платежей")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Запрос выполнен успешно", content = @Content(schema = @Schema(implementation = BillPageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Страница не изменилась"),
             @ApiResponse(responseCode = "400", description = "Ошибочный запрос"),
             @ApiResponse(responseCode = "409", description = "Запись уже существует"),
             @ApiResponse(responseCode = "503", description = "Сервис временно недоступен")
     })
     @GetMapping("/all")
-    public Mono<BillPageResponse> getAll(
+    public Mono<ResponseEntity<BillPageResponse>> getAll(
             @RequestParam(defaultValue = "0") @Min(0) Integer pageNumber,
             @RequestParam(defaultValue = "10") @Min(0) Integer sizeNumber,
             @RequestParam(defaultValue = "creationDate") String sortBy,
             @RequestParam String direction,
             @RequestParam Boolean showPaidBills,
             @RequestParam UUID userId) {
-        return billServiceClient.get()
+        return billService.getPage(pageNumber, sizeNumber, sortBy, direction, showPaidBills, userId);
+    }
+
+    @Operation(summary = "Выгрузить все платежи потоком")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запрос выполнен успешно", content = @Content(schema = @Schema(implementation = BillResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибочный запрос"),
+            @ApiResponse(responseCode = "503", description = "Сервис временно недоступен")
+    })
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<JsonNode> export(
+            @RequestParam(defaultValue = "500") @Min(1) Integer sizeNumber,
+            @RequestParam(defaultValue = "creationDate") String sortBy,
+            @RequestParam String direction,
+            @RequestParam Boolean showPaidBills,
+            @RequestParam UUID userId) {
+        return pageExporter.export(sizeNumber, pageNumber -> billServiceClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("bills/all")
                         .queryParam("pageNumber", pageNumber)
@@ -129,7 +172,7 @@ public class BillsController {
                         .queryParam("userId", userId)
                         .build())
                 .retrieve()
-                .bodyToMono(BillPageResponse.class);
+                .bodyToMono(JsonNode.class));
     }
 
     @Operation(summary = "Получить платеж по id")
@@ -162,7 +205,37 @@ public class BillsController {
                 .uri(uriBuilder -> uriBuilder
                         .path("bills/delete")
                         .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(String.class)
+                .doFinally(signal -> pageCache.invalidate("bills-service"));
+    }
+
+    private Mono<UserResponseDto> existingUser(UUID userId) {
+        return userService.getUser(userId)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(userId)));
+    }
+
+    private Mono<BillResponseDto> postBill(BillPostDto billPostDto) {
+        return billServiceClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("bills/add")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(billPostDto))
+                .retrieve()
+                .bodyToMono(BillResponseDto.class)
+                .doFinally(signal -> pageCache.invalidate("bills-service"));
+    }
+
+    private Mono<String> deleteBill(UUID externalId) {
+        return billServiceClient.delete()
+                .uri(uriBuilder -> uriBuilder
+                        .path("bills/{externalId}/delete")
+                        .build(externalId))
+                .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
-                .bodyToMono(String.class);
+                .bodyToMono(String.class)
+                .doFinally(signal -> pageCache.invalidate("bills-service"));
     }
 }
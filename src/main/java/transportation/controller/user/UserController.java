@@ -1,16 +1,25 @@
 package transportation.controller.user;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import transportation.cache.PageCache;
+import transportation.service.PageExporter;
+import transportation.service.UserOverview;
+import transportation.service.UserOverviewService;
+import transportation.service.UserService;
 import users.UserPageResponse;
 import users.UserPostDto;
 import users.UserPutDto;
@@ -18,14 +27,25 @@ import users.UserResponseDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
+@Validated
 @RequestMapping("v1/users")
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final WebClient userServiceClient;
+    private final UserService userService;
+    private final PageExporter pageExporter;
+    private final PageCache pageCache;
+    private final UserOverviewService userOverviewService;
 
     @Operation(summary = "Добавить пользователя")
     @ApiResponses(value = {
@@ -36,25 +56,19 @@ public class UserController {
     })
     @PostMapping("/add")
     public Mono<UserResponseDto> add(@Valid @RequestBody UserPostDto userPostDto) {
-        return userServiceClient.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path("users/add")
-                        .build())
-                .accept(MediaType.APPLICATION_JSON)
-                .body(BodyInserters.fromValue(userPostDto))
-                .retrieve()
-                .bodyToMono(UserResponseDto.class);
+        return userService.addUser(userPostDto);
     }
 
     @Operation(summary = "Получить список пользователей")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Запрос выполнен успешно", content = @Content(schema = @Schema(implementation = UserPageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Страница не изменилась"),
             @ApiResponse(responseCode = "400", description = "Ошибочный запрос"),
             @ApiResponse(responseCode = "409", description = "Запись уже существует"),
             @ApiResponse(responseCode = "503", description = "Сервис временно недоступен")
     })
     @GetMapping("/all")
-    public Mono<UserPageResponse> getAll(
+    public Mono<ResponseEntity<UserPageResponse>> getAll(
             @RequestParam(defaultValue = "0") @Min(0) Integer pageNumber,
             @RequestParam(defaultValue = "10") @Min(1) Integer pageSize,
             @RequestParam(defaultValue = "creationDate") String sortBy,
@@ -62,7 +76,14 @@ public class UserController {
             @RequestParam(required = false) String firstNameFilter,
             @RequestParam(required = false) String lastNameFilter
     ) {
-        return userServiceClient.get()
+        Map<String, Object> query = new HashMap<>();
+        query.put("pageNumber", pageNumber);
+        query.put("pageSize", pageSize);
+        query.put("sortBy", sortBy);
+        query.put("direction", direction);
+        query.put("firstNameFilter", firstNameFilter);
+        query.put("lastNameFilter", lastNameFilter);
+        return pageCache.get("user-service", query, eTag -> userServiceClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("users/all")
                         .queryParam("pageNumber", pageNumber)
@@ -72,8 +93,41 @@ public class UserController {
                         .queryParam("firstNameFilter", firstNameFilter)
                         .queryParam("lastNameFilter", lastNameFilter)
                         .build())
+                .headers(headers -> {
+                    if (eTag != null) {
+                        headers.setIfNoneMatch(eTag);
+                    }
+                })
                 .retrieve()
-                .bodyToMono(UserPageResponse.class);
+                .toEntity(UserPageResponse.class));
+    }
+
+    @Operation(summary = "Выгрузить всех пользователей потоком")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запрос выполнен успешно", content = @Content(schema = @Schema(implementation = UserResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибочный запрос"),
+            @ApiResponse(responseCode = "503", description = "Сервис временно недоступен")
+    })
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<JsonNode> export(
+            @RequestParam(defaultValue = "500") @Min(1) Integer pageSize,
+            @RequestParam(defaultValue = "creationDate") String sortBy,
+            @RequestParam String direction,
+            @RequestParam(required = false) String firstNameFilter,
+            @RequestParam(required = false) String lastNameFilter
+    ) {
+        return pageExporter.export(pageSize, pageNumber -> userServiceClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("users/all")
+                        .queryParam("pageNumber", pageNumber)
+                        .queryParam("pageSize", pageSize)
+                        .queryParam("sortBy", sortBy)
+                        .queryParam("direction", direction)
+                        .queryParam("firstNameFilter", firstNameFilter)
+                        .queryParam("lastNameFilter", lastNameFilter)
+                        .build())
+                .retrieve()
+                .bodyToMono(JsonNode.class));
     }
 
     @Operation(summary = "Получить пользователя по id")
@@ -85,12 +139,34 @@ public class UserController {
     })
     @GetMapping("/{externalId}")
     public Mono<UserResponseDto> getById(@PathVariable UUID externalId) {
-        return userServiceClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("users/{externalId}")
-                        .build(externalId))
-                .retrieve()
-                .bodyToMono(UserResponseDto.class);
+        return userService.getUser(externalId);
+    }
+
+    @Operation(summary = "Получить пользователя и первую страницу его платежей")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запрос выполнен успешно", content = @Content(schema = @Schema(implementation = UserOverview.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибочный запрос"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден"),
+            @ApiResponse(responseCode = "503", description = "Сервис временно недоступен")
+    })
+    @GetMapping("/{externalId}/overview")
+    public Mono<UserOverview> getOverview(
+            @PathVariable UUID externalId,
+            @RequestParam(defaultValue = "10") @Min(1) Integer sizeNumber,
+            @RequestParam(defaultValue = "DESC") String direction,
+            @RequestParam(defaultValue = "true") Boolean showPaidBills) {
+        return userOverviewService.getOverview(externalId, sizeNumber, direction, showPaidBills);
+    }
+
+    @Operation(summary = "Получить пользователей по списку id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запрос выполнен успешно", content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserResponseDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Ошибочный запрос"),
+            @ApiResponse(responseCode = "503", description = "Сервис временно недоступен")
+    })
+    @PostMapping("/batch")
+    public Flux<UserResponseDto> getByIds(@RequestBody @Size(max = MAX_BATCH_SIZE) Set<UUID> externalIds) {
+        return userService.getUsers(externalIds);
     }
 
     @Operation(summary = "Удалить пользователя по id")
@@ -102,12 +178,7 @@ public class UserController {
     })
     @DeleteMapping("/{externalId}/delete")
     public Mono<String> deleteById(@PathVariable UUID externalId) {
-        return userServiceClient.delete()
-                .uri(uriBuilder -> uriBuilder
-                        .path("users/{externalId}/delete")
-                        .build(externalId))
-                .retrieve()
-                .bodyToMono(String.class);
+        return userService.deleteUser(externalId);
     }
 
     @Operation(summary = "Удалить всех пользователей")
@@ -119,12 +190,7 @@ public class UserController {
     })
     @DeleteMapping("/delete")
     public Mono<String> deleteAll() {
-        return userServiceClient.delete()
-                .uri(uriBuilder -> uriBuilder
-                        .path("users/delete")
-                        .build())
-                .retrieve()
-                .bodyToMono(String.class);
+        return userService.deleteAllUsers();
     }
 
     @Operation(summary = "Обновить данные пользователея")
@@ -136,14 +202,7 @@ public class UserController {
     })
     @PutMapping("/{externalId}")
     public Mono<UserResponseDto> update(@PathVariable UUID externalId, @Valid @RequestBody UserPutDto userDto) {
-        return userServiceClient.put()
-                .uri(uriBuilder -> uriBuilder
-                        .path("users/{externalId}")
-                        .build(externalId))
-                .accept(MediaType.APPLICATION_JSON)
-                .body(BodyInserters.fromValue(userDto))
-                .retrieve()
-                .bodyToMono(UserResponseDto.class);
+        return userService.updateUser(externalId, userDto);
     }
 
     @Operation(summary = "Востановить пользователя по id")
@@ -155,11 +214,6 @@ public class UserController {
     })
     @PostMapping("/{externalId}")
     public Mono<UserResponseDto> reestablish(@PathVariable UUID externalId) {
-        return userServiceClient.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path("users/{externalId}")
-                        .build(externalId))
-                .retrieve()
-                .bodyToMono(UserResponseDto.class);
+        return userService.reestablishUser(externalId);
     }
 }
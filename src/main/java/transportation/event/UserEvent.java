@@ -0,0 +1,31 @@
+package transportation.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Событие об изменении пользователя. Для DELETED_ALL externalId не заполняется.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEvent {
+
+    /**
+     * Идентификатор этого экземпляра шлюза; собственные события при чтении пропускаются.
+     */
+    public static final String NODE_ID = UUID.randomUUID().toString();
+
+    private Type type;
+    private UUID externalId;
+    private String origin;
+
+    public enum Type {
+        UPDATED,
+        DELETED,
+        DELETED_ALL
+    }
+}
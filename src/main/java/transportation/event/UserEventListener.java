@@ -0,0 +1,107 @@
+package transportation.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+import transportation.cache.PageCache;
+import transportation.cache.UserCache;
+import transportation.cache.UserExistenceIndex;
+import transportation.config.KafkaProperties;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Читает события об изменениях пользователей и приводит к ним локальные кэши:
+ * измененный пользователь вытесняется и будет загружен заново при следующем запросе.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "kafka.user-events", name = "enabled", havingValue = "true")
+public class UserEventListener {
+
+    private final ReceiverOptions<String, String> userEventReceiverOptions;
+    private final KafkaProperties kafkaProperties;
+    private final ObjectMapper objectMapper;
+    private final UserCache userCache;
+    private final UserExistenceIndex userExistenceIndex;
+    private final PageCache pageCache;
+    private Disposable subscription;
+
+    @PostConstruct
+    public void start() {
+        subscription = Flux.defer(() -> partitions()
+                        .flatMapMany(partitions -> KafkaReceiver.create(userEventReceiverOptions.assignment(partitions))
+                                .receive()))
+                .concatMap(this::apply)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(retry -> log.warn("User events consumer failed, reconnecting", retry.failure())))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Разделы топика на момент подключения; разделы, добавленные позже, читаются после переподключения.
+     */
+    private Mono<List<TopicPartition>> partitions() {
+        String topic = kafkaProperties.getUserEvents().getTopic();
+        return Mono.fromCallable(() -> {
+                    try (Consumer<String, String> consumer = new KafkaConsumer<>(userEventReceiverOptions.consumerProperties())) {
+                        List<PartitionInfo> partitions = consumer.partitionsFor(topic);
+                        if (partitions == null || partitions.isEmpty()) {
+                            throw new IllegalStateException("Topic " + topic + " has no partitions");
+                        }
+                        return partitions.stream()
+                                .map(partition -> new TopicPartition(topic, partition.partition()))
+                                .collect(Collectors.toList());
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> apply(ReceiverRecord<String, String> record) {
+        return Mono.fromCallable(() -> objectMapper.readValue(record.value(), UserEvent.class))
+                .filter(event -> !UserEvent.NODE_ID.equals(event.getOrigin()))
+                .flatMap(event -> {
+                    pageCache.invalidate("user-service");
+                    switch (event.getType()) {
+                        case DELETED:
+                            return userCache.evict(event.getExternalId())
+                                    .then(userExistenceIndex.markAbsent(event.getExternalId()));
+                        case DELETED_ALL:
+                            return userCache.evictAll();
+                        default:
+                            return userCache.evict(event.getExternalId())
+                                    .then(userExistenceIndex.markPresent(event.getExternalId()));
+                    }
+                })
+                .onErrorResume(error -> {
+                    log.warn("Failed to apply user event at offset {}", record.offset(), error);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,54 @@
+package transportation.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Публикует события об изменениях пользователей, выполненных через этот шлюз.
+ * Событие отправляется в фоне и не задерживает ответ. Ошибка публикации не отменяет
+ * изменение: она только логируется, а записи других узлов устареют не дольше TTL кэша.
+ */
+@Slf4j
+@Component
+public class UserEventPublisher {
+
+    private final Optional<KafkaSender<String, String>> userEventSender;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final Duration publishTimeout;
+
+    public UserEventPublisher(
+            Optional<KafkaSender<String, String>> userEventSender,
+            ObjectMapper objectMapper,
+            @Value("${kafka.user-events.topic}") String topic,
+            @Value("${kafka.user-events.publish-timeout}") Duration publishTimeout) {
+        this.userEventSender = userEventSender;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.publishTimeout = publishTimeout;
+    }
+
+    public Mono<Void> publish(UserEvent.Type type, UUID externalId) {
+        return Mono.fromRunnable(() -> userEventSender.ifPresent(sender -> send(sender, type, externalId)));
+    }
+
+    private void send(KafkaSender<String, String> sender, UserEvent.Type type, UUID externalId) {
+        Mono.fromCallable(() -> objectMapper.writeValueAsString(new UserEvent(type, externalId, UserEvent.NODE_ID)))
+                .flatMap(value -> sender
+                        .send(Mono.just(SenderRecord.create(
+                                new ProducerRecord<>(topic, externalId == null ? null : externalId.toString(), value), type)))
+                        .then())
+                .timeout(publishTimeout)
+                .subscribe(null, error -> log.warn("Failed to publish {} event for user {}", type, externalId, error));
+    }
+}
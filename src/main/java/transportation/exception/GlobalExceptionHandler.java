@@ -1,6 +1,8 @@
 package transportation.exception;
 
 import exception.ErrorResponse;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -8,6 +10,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import javax.validation.ConstraintViolationException;
 import java.time.LocalDate;
 
 @RestControllerAdvice
@@ -17,7 +20,7 @@ public class GlobalExceptionHandler {
     ResponseEntity handleAllExceptions(WebClientRequestException exception) {
         ErrorResponse exceptionResponse = new ErrorResponse(LocalDate.now(), exception.getCause().toString(), exception.getMessage());
 
-        return new ResponseEntity<>(exceptionResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(exceptionResponse, HttpStatus.SERVICE_UNAVAILABLE);
     }
     @ExceptionHandler(WebClientResponseException.class)
     ResponseEntity handleAllExceptions(WebClientResponseException exception) {
@@ -25,4 +28,25 @@ public class GlobalExceptionHandler {
 
         return new ResponseEntity<>(exceptionResponse, exception.getStatusCode());
     }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    ResponseEntity handleConstraintViolation(ConstraintViolationException exception) {
+        ErrorResponse exceptionResponse = new ErrorResponse(LocalDate.now(), HttpStatus.BAD_REQUEST.getReasonPhrase(), exception.getMessage());
+
+        return new ResponseEntity<>(exceptionResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(UserNotFoundException.class)
+    ResponseEntity handleUserNotFound(UserNotFoundException exception) {
+        ErrorResponse exceptionResponse = new ErrorResponse(LocalDate.now(), HttpStatus.NOT_FOUND.getReasonPhrase(), exception.getMessage());
+
+        return new ResponseEntity<>(exceptionResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+    ResponseEntity handleUnavailable(RuntimeException exception) {
+        ErrorResponse exceptionResponse = new ErrorResponse(LocalDate.now(), HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(), exception.getMessage());
+
+        return new ResponseEntity<>(exceptionResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
@@ -0,0 +1,10 @@
+package transportation.exception;
+
+import java.util.UUID;
+
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(UUID externalId) {
+        super("User " + externalId + " not found");
+    }
+}
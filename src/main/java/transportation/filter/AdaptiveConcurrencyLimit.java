@@ -0,0 +1,78 @@
+package transportation.filter;
+
+import transportation.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Лимит одновременных запросов по схеме AIMD: при ответе быстрее порога и загрузке
+ * не меньше половины лимита он растет примерно на единицу за окно, при медленном
+ * или ошибочном ответе умножается на backoffRatio.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final double lowPriorityShare;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limit;
+
+    AdaptiveConcurrencyLimit(ConcurrencyLimitProperties.Group properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.lowPriorityShare = properties.getLowPriorityShare();
+        this.limit = new AtomicLong(Double.doubleToLongBits(properties.getInitialLimit()));
+    }
+
+    /**
+     * Запросы низкого приоритета допускаются только в пределах своей доли лимита.
+     */
+    boolean tryAcquire(ConcurrencyLimitProperties.Priority priority) {
+        double current = getLimit();
+        int allowed = priority == ConcurrencyLimitProperties.Priority.LOW
+                ? Math.max(1, (int) (current * lowPriorityShare))
+                : (int) current;
+        while (true) {
+            int taken = inFlight.get();
+            if (taken >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        boolean overloaded = failed || latencyNanos > latencyThresholdNanos;
+        while (true) {
+            long bits = limit.get();
+            double previous = Double.longBitsToDouble(bits);
+            double next;
+            if (overloaded) {
+                next = Math.max(minLimit, previous * backoffRatio);
+            } else if (current * 2 >= previous) {
+                next = Math.min(maxLimit, previous + 1 / previous);
+            } else {
+                return;
+            }
+            if (next == previous || limit.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    double getLimit() {
+        return Double.longBitsToDouble(limit.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
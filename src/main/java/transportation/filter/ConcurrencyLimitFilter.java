@@ -0,0 +1,122 @@
+package transportation.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import transportation.config.ConcurrencyLimitProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ограничивает число одновременных запросов в каждой группе маршрутов адаптивным лимитом.
+ * Запросы сверх лимита сразу отклоняются с 503 и Retry-After, чтобы при всплеске часть
+ * запросов быстро получала отказ, а не все становились медленными.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class ConcurrencyLimitFilter implements WebFilter {
+
+    private final boolean enabled;
+    private final String retryAfter;
+    private final List<Route> routes;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.retryAfter = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+        Map<String, Group> groups = new HashMap<>();
+        properties.getGroups().forEach((name, group) -> groups.put(name, new Group(name, group, meterRegistry)));
+        this.routes = properties.getRoutes().stream()
+                .map(route -> {
+                    Group group = groups.get(route.getGroup());
+                    if (group == null) {
+                        throw new IllegalArgumentException("Unknown concurrency limit group: " + route.getGroup());
+                    }
+                    return new Route(route, PathPatternParser.defaultInstance.parse(route.getPath()), group);
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        for (Route route : routes) {
+            if ((route.properties.getMethod() == null || route.properties.getMethod() == request.getMethod())
+                    && route.pattern.matches(request.getPath().pathWithinApplication())) {
+                return limit(exchange, chain, route);
+            }
+        }
+        return chain.filter(exchange);
+    }
+
+    private Mono<Void> limit(ServerWebExchange exchange, WebFilterChain chain, Route route) {
+        Group group = route.group;
+        if (!group.limit.tryAcquire(route.properties.getPriority())) {
+            group.shed.increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return response.setComplete();
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    HttpStatus status = exchange.getResponse().getStatusCode();
+                    boolean failed = signal == SignalType.ON_ERROR
+                            || status != null && status.is5xxServerError();
+                    group.limit.release(System.nanoTime() - start, failed);
+                });
+    }
+
+    private static class Group {
+        private final AdaptiveConcurrencyLimit limit;
+        private final Counter shed;
+
+        private Group(String name, ConcurrencyLimitProperties.Group properties, MeterRegistry meterRegistry) {
+            this.limit = new AdaptiveConcurrencyLimit(properties);
+            this.shed = Counter.builder("gateway.concurrency.shed")
+                    .description("Запросы, отклоненные лимитом одновременных запросов")
+                    .tag("group", name)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Текущий лимит одновременных запросов")
+                    .tag("group", name)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Запросы в обработке")
+                    .tag("group", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static class Route {
+        private final ConcurrencyLimitProperties.Route properties;
+        private final PathPattern pattern;
+        private final Group group;
+
+        private Route(ConcurrencyLimitProperties.Route properties, PathPattern pattern, Group group) {
+            this.properties = properties;
+            this.pattern = pattern;
+            this.group = group;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package transportation.filter;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import transportation.cache.PageCache;
+import transportation.config.PassthroughProperties;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Проксирует включенные в passthrough.routes маршруты напрямую в сервис:
+ * тело запроса и ответа передается потоком DataBuffer без преобразования в DTO,
+ * статус и заголовки ответа сохраняются. Запрос без Accept уходит с application/json,
+ * а не с Accept клиента сервиса, иначе ответ мог бы прийти в Smile или CBOR.
+ * Недоступный сервис и отказ circuit breaker или bulkhead дают 503, как в контроллерах.
+ * Остальные запросы идут в контроллеры.
+ */
+@Slf4j
+@Component
+public class PassthroughFilter implements WebFilter {
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.HOST.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.TE.toLowerCase(),
+            HttpHeaders.UPGRADE.toLowerCase(),
+            HttpHeaders.PROXY_AUTHORIZATION.toLowerCase(),
+            HttpHeaders.PROXY_AUTHENTICATE.toLowerCase(),
+            HttpHeaders.TRAILER.toLowerCase());
+
+    private static final Pattern VARIABLE_REGEX = Pattern.compile("\\{(\\w+):[^/]*}");
+
+    private final String stripPrefix;
+    private final List<Route> routes;
+    private final Map<String, Upstream> upstreams;
+    private final PageCache pageCache;
+
+    public PassthroughFilter(
+            PassthroughProperties properties,
+            PageCache pageCache,
+            WebClient userServiceClient,
+            WebClient billServiceClient,
+            @Value("${services.user-service-url}") String userServiceUrl,
+            @Value("${services.bills-service-url}") String billsServiceUrl) {
+        this.stripPrefix = properties.getStripPrefix();
+        this.pageCache = pageCache;
+        this.upstreams = Map.of(
+                "user-service", new Upstream(userServiceClient, userServiceUrl),
+                "bills-service", new Upstream(billServiceClient, billsServiceUrl));
+        this.routes = properties.getRoutes().stream()
+                .filter(PassthroughProperties.Route::isEnabled)
+                .map(route -> new Route(
+                        route,
+                        PathPatternParser.defaultInstance.parse(route.getPath()),
+                        PathPatternParser.defaultInstance.parse(VARIABLE_REGEX.matcher(route.getPath()).replaceAll("{$1}"))))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        for (Route route : routes) {
+            if (route.properties.getMethod() == request.getMethod()
+                    && route.pattern.matches(request.getPath().pathWithinApplication())) {
+                exchange.getAttributes().put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route.metricsPattern);
+                Mono<Void> forward = forward(exchange, upstreams.get(route.properties.getService()));
+                return request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.HEAD
+                        ? forward
+                        : forward.doFinally(signal -> pageCache.invalidate(route.properties.getService()));
+            }
+        }
+        return chain.filter(exchange);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, Upstream upstream) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        String path = request.getPath().pathWithinApplication().value();
+        String rawQuery = request.getURI().getRawQuery();
+        URI uri = URI.create(upstream.baseUrl
+                + (path.startsWith(stripPrefix) ? path.substring(stripPrefix.length()) : path)
+                + (rawQuery == null ? "" : "?" + rawQuery));
+
+        WebClient.RequestBodySpec upstreamRequest = upstream.client.method(request.getMethod())
+                .uri(uri)
+                .headers(headers -> {
+                    copyHeaders(request.getHeaders(), headers);
+                    if (!headers.containsKey(HttpHeaders.ACCEPT)) {
+                        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+                    }
+                });
+        if (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD) {
+            upstreamRequest.body(BodyInserters.fromDataBuffers(request.getBody()));
+        }
+        return upstreamRequest
+                .exchangeToMono(upstreamResponse -> {
+                    response.setRawStatusCode(upstreamResponse.rawStatusCode());
+                    copyHeaders(upstreamResponse.headers().asHttpHeaders(), response.getHeaders());
+                    return response.writeWith(upstreamResponse.body(BodyExtractors.toDataBuffers()));
+                })
+                .onErrorResume(WebClientResponseException.class, error -> {
+                    response.setRawStatusCode(error.getRawStatusCode());
+                    copyHeaders(error.getHeaders(), response.getHeaders());
+                    DataBuffer body = response.bufferFactory().wrap(error.getResponseBodyAsByteArray());
+                    return response.writeWith(Mono.just(body));
+                })
+                .onErrorMap(error -> error instanceof CallNotPermittedException || error instanceof BulkheadFullException
+                                || error instanceof WebClientRequestException,
+                        error -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, error.getMessage(), error));
+    }
+
+    private static void copyHeaders(HttpHeaders from, HttpHeaders to) {
+        from.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                to.put(name, values);
+            }
+        });
+    }
+
+    private static class Route {
+        private final PassthroughProperties.Route properties;
+        private final PathPattern pattern;
+        private final PathPattern metricsPattern;
+
+        private Route(PassthroughProperties.Route properties, PathPattern pattern, PathPattern metricsPattern) {
+            this.properties = properties;
+            this.pattern = pattern;
+            this.metricsPattern = metricsPattern;
+        }
+    }
+
+    private static class Upstream {
+        private final WebClient client;
+        private final String baseUrl;
+
+        private Upstream(WebClient client, String baseUrl) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+        }
+    }
+}
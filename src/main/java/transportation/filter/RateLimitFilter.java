@@ -0,0 +1,154 @@
+package transportation.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import transportation.config.RateLimitProperties;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Ограничивает частоту запросов каждого клиента к маршрутам из rate-limit.routes.
+ * У каждого маршрута свой набор бакетов по клиентам; бакеты, простоявшие дольше
+ * idleTimeout, периодически удаляются. Число бакетов маршрута ограничено maxClients:
+ * заголовок клиента не проверяется, и без ограничения поток случайных ключей занял бы
+ * всю память. Клиенты сверх лимита делят один общий бакет маршрута.
+ * Превышение лимита - 429 с Retry-After.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 50)
+public class RateLimitFilter implements WebFilter {
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final boolean enabled;
+    private final String clientHeader;
+    private final Duration idleTimeout;
+    private final int maxClients;
+    private final List<Route> routes;
+    private Disposable eviction;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.clientHeader = properties.getClientHeader();
+        this.idleTimeout = properties.getIdleTimeout();
+        this.maxClients = properties.getMaxClients();
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new Route(route, meterRegistry))
+                .collect(Collectors.toList());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled && !routes.isEmpty()) {
+            eviction = Flux.interval(idleTimeout)
+                    .subscribe(tick -> evictIdle());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (eviction != null) {
+            eviction.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        for (Route route : routes) {
+            if ((route.method == null || route.method == request.getMethod())
+                    && route.pattern.matches(request.getPath().pathWithinApplication())) {
+                long wait = route.tryAcquire(client(request), System.nanoTime(), maxClients);
+                return wait == 0 ? chain.filter(exchange) : reject(exchange, route, wait);
+            }
+        }
+        return chain.filter(exchange);
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, Route route, long waitNanos) {
+        route.limited.increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        return response.setComplete();
+    }
+
+    /**
+     * Значение заголовка клиента, иначе адрес подключения. Адрес служит ключом сам по себе,
+     * без форматирования в строку на каждый запрос.
+     */
+    private Object client(ServerHttpRequest request) {
+        String client = request.getHeaders().getFirst(clientHeader);
+        if (client != null) {
+            return client;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress == null || remoteAddress.getAddress() == null
+                ? UNKNOWN_CLIENT
+                : remoteAddress.getAddress();
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        long idle = idleTimeout.toNanos();
+        routes.forEach(route -> route.buckets.values().removeIf(bucket -> bucket.isIdle(now, idle)));
+    }
+
+    private static class Route {
+        private final HttpMethod method;
+        private final PathPattern pattern;
+        private final long emissionInterval;
+        private final long tolerance;
+        private final ConcurrentHashMap<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final TokenBucket overflow = new TokenBucket(System.nanoTime());
+        private final Counter limited;
+
+        private Route(RateLimitProperties.Route properties, MeterRegistry meterRegistry) {
+            this.method = properties.getMethod();
+            this.pattern = PathPatternParser.defaultInstance.parse(properties.getPath());
+            this.emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getPermitsPerSecond());
+            this.tolerance = emissionInterval * (Math.max(1, properties.getBurst()) - 1);
+            this.limited = Counter.builder("gateway.rate.limited")
+                    .description("Запросы, отклоненные ограничением частоты")
+                    .tag("route", properties.getPath())
+                    .register(meterRegistry);
+        }
+
+        private long tryAcquire(Object client, long now, int maxClients) {
+            TokenBucket bucket = buckets.get(client);
+            if (bucket == null) {
+                bucket = buckets.mappingCount() < maxClients
+                        ? buckets.computeIfAbsent(client, key -> new TokenBucket(now))
+                        : overflow;
+            }
+            return bucket.tryAcquire(now, emissionInterval, tolerance);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package transportation.filter;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Токен-бакет в форме GCRA: состояние - одно число, теоретическое время прихода
+ * следующего запроса, и обновляется одним CAS без блокировок и выделения памяти.
+ */
+class TokenBucket {
+
+    private static final AtomicLongFieldUpdater<TokenBucket> ARRIVAL =
+            AtomicLongFieldUpdater.newUpdater(TokenBucket.class, "theoreticalArrival");
+
+    private volatile long theoreticalArrival;
+
+    TokenBucket(long now) {
+        this.theoreticalArrival = now;
+    }
+
+    /**
+     * @return 0, если запрос разрешен, иначе время в наносекундах до освобождения токена
+     */
+    long tryAcquire(long now, long emissionInterval, long tolerance) {
+        while (true) {
+            long current = theoreticalArrival;
+            long arrival = Math.max(current, now);
+            long wait = arrival - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (ARRIVAL.compareAndSet(this, current, arrival + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+
+    boolean isIdle(long now, long idleTimeout) {
+        return now - theoreticalArrival > idleTimeout;
+    }
+}
@@ -0,0 +1,19 @@
+package transportation.service;
+
+import bill.BillResponseDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Результат импорта одного платежа: порядковый номер во входном потоке, HTTP-статус
+ * и созданный платеж либо текст ошибки.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BillImportResult {
+
+    private final long index;
+    private final int status;
+    private final BillResponseDto bill;
+    private final String error;
+}
@@ -0,0 +1,151 @@
+package transportation.service;
+
+import bill.BillPostDto;
+import bill.BillResponseDto;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import transportation.cache.PageCache;
+import users.UserResponseDto;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт платежей. Входной поток делится на пачки; для каждой пачки
+ * пользователи, которые еще не встречались в импорте, проверяются одним пакетным
+ * запросом через кэш, после чего платежи отправляются в bills-service с ограниченной
+ * параллельностью. Проверка следующей пачки идет, пока отправляются платежи текущей.
+ */
+@Service
+public class BillImporter {
+
+    private final WebClient billServiceClient;
+    private final UserService userService;
+    private final PageCache pageCache;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int concurrency;
+
+    public BillImporter(
+            WebClient billServiceClient,
+            UserService userService,
+            PageCache pageCache,
+            Validator validator,
+            @Value("${bills.import.chunk-size}") int chunkSize,
+            @Value("${bills.import.concurrency}") int concurrency) {
+        this.billServiceClient = billServiceClient;
+        this.userService = userService;
+        this.pageCache = pageCache;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+    }
+
+    public Flux<BillImportResult> importBills(Flux<BillPostDto> bills) {
+        return Flux.defer(() -> {
+            Set<UUID> knownUsers = new HashSet<>();
+            Set<UUID> missingUsers = new HashSet<>();
+            return bills.index()
+                    .buffer(chunkSize)
+                    .concatMap(chunk -> resolveUsers(chunk, knownUsers, missingUsers)
+                            .thenMany(Flux.fromIterable(chunk)
+                                    .map(item -> new Resolved(item, reject(item, knownUsers, missingUsers)))), 1)
+                    .flatMap(this::importBill, concurrency)
+                    .doFinally(signal -> pageCache.invalidate("bills-service"));
+        });
+    }
+
+    private Mono<Void> resolveUsers(List<Tuple2<Long, BillPostDto>> chunk, Set<UUID> knownUsers, Set<UUID> missingUsers) {
+        Set<UUID> unresolved = chunk.stream()
+                .map(item -> item.getT2().getUserId())
+                .filter(userId -> userId != null && !knownUsers.contains(userId) && !missingUsers.contains(userId))
+                .collect(Collectors.toSet());
+        if (unresolved.isEmpty()) {
+            return Mono.empty();
+        }
+        return userService.getUsers(unresolved)
+                .map(UserResponseDto::getExternalId)
+                .collect(Collectors.toSet())
+                .doOnNext(found -> unresolved.forEach(userId ->
+                        (found.contains(userId) ? knownUsers : missingUsers).add(userId)))
+                .then()
+                .onErrorResume(error -> Mono.empty());
+    }
+
+    /**
+     * @return результат с ошибкой, если платеж не нужно отправлять, иначе null
+     */
+    private BillImportResult reject(Tuple2<Long, BillPostDto> item, Set<UUID> knownUsers, Set<UUID> missingUsers) {
+        BillPostDto bill = item.getT2();
+        Set<ConstraintViolation<BillPostDto>> violations = validator.validate(bill);
+        if (!violations.isEmpty() || bill.getUserId() == null) {
+            String error = violations.isEmpty()
+                    ? "userId must not be null"
+                    : violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .collect(Collectors.joining(", "));
+            return new BillImportResult(item.getT1(), HttpStatus.BAD_REQUEST.value(), null, error);
+        }
+        if (missingUsers.contains(bill.getUserId())) {
+            return new BillImportResult(item.getT1(), HttpStatus.NOT_FOUND.value(), null,
+                    "User " + bill.getUserId() + " not found");
+        }
+        if (!knownUsers.contains(bill.getUserId())) {
+            return new BillImportResult(item.getT1(), HttpStatus.SERVICE_UNAVAILABLE.value(), null,
+                    "User " + bill.getUserId() + " could not be checked");
+        }
+        return null;
+    }
+
+    private Mono<BillImportResult> importBill(Resolved resolved) {
+        if (resolved.rejection != null) {
+            return Mono.just(resolved.rejection);
+        }
+        long index = resolved.item.getT1();
+        return billServiceClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("bills/add")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(resolved.item.getT2()))
+                .retrieve()
+                .bodyToMono(BillResponseDto.class)
+                .map(bill -> new BillImportResult(index, HttpStatus.OK.value(), bill, null))
+                .onErrorResume(error -> Mono.just(new BillImportResult(index, status(error), null, error.getMessage())));
+    }
+
+    private static int status(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            return ((WebClientResponseException) error).getRawStatusCode();
+        }
+        if (error instanceof CallNotPermittedException || error instanceof BulkheadFullException) {
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    private static class Resolved {
+        private final Tuple2<Long, BillPostDto> item;
+        private final BillImportResult rejection;
+
+        private Resolved(Tuple2<Long, BillPostDto> item, BillImportResult rejection) {
+            this.item = item;
+            this.rejection = rejection;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package transportation.service;
+
+import bill.BillPageResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import transportation.cache.PageCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class BillService {
+
+    private final WebClient billServiceClient;
+    private final PageCache pageCache;
+
+    public Mono<ResponseEntity<BillPageResponse>> getPage(
+            Integer pageNumber, Integer sizeNumber, String sortBy, String direction, Boolean showPaidBills, UUID userId) {
+        Map<String, Object> query = new HashMap<>();
+        query.put("pageNumber", pageNumber);
+        query.put("sizeNumber", sizeNumber);
+        query.put("sortBy", sortBy);
+        query.put("direction", direction);
+        query.put("showPaidBills", showPaidBills);
+        query.put("userId", userId);
+        return pageCache.get("bills-service", query, eTag -> billServiceClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("bills/all")
+                        .queryParam("pageNumber", pageNumber)
+                        .queryParam("sizeNumber", sizeNumber)
+                        .queryParam("creationDate", sortBy)
+                        .queryParam("direction", direction)
+                        .queryParam("showPaidBills", showPaidBills)
+                        .queryParam("userId", userId)
+                        .build())
+                .headers(headers -> {
+                    if (eTag != null) {
+                        headers.setIfNoneMatch(eTag);
+                    }
+                })
+                .retrieve()
+                .toEntity(BillPageResponse.class));
+    }
+}
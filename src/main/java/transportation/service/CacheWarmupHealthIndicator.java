@@ -0,0 +1,31 @@
+package transportation.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Готовность по прогреву кэша пользователей: UP, когда заполнена доля cache.warmup.fill_ratio.
+ */
+@Component
+public class CacheWarmupHealthIndicator extends AbstractHealthIndicator {
+
+    private final UserCacheWarmer userCacheWarmer;
+    private final double fillRatio;
+
+    public CacheWarmupHealthIndicator(
+            UserCacheWarmer userCacheWarmer,
+            @Value("${cache.warmup.fill_ratio}") double fillRatio) {
+        this.userCacheWarmer = userCacheWarmer;
+        this.fillRatio = fillRatio;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        double current = userCacheWarmer.fillRatio();
+        (current >= fillRatio ? builder.up() : builder.outOfService())
+                .withDetail("fillRatio", current)
+                .withDetail("requiredFillRatio", fillRatio);
+    }
+}
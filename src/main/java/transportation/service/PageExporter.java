@@ -0,0 +1,46 @@
+package transportation.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Обходит постраничные ответы сервиса и отдает записи потоком.
+ * Следующие страницы запрашиваются заранее, пока текущая отдается клиенту,
+ * но не больше export.prefetch-pages страниц сверх отдаваемой, сколько бы записей
+ * ни запросил подписчик.
+ * Записи берутся из поля content; страница без него завершает поток ошибкой.
+ */
+@Component
+public class PageExporter {
+
+    private final int prefetchPages;
+
+    public PageExporter(@Value("${export.prefetch-pages}") int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    public Flux<JsonNode> export(int pageSize, IntFunction<Mono<JsonNode>> pageLoader) {
+        return Flux.range(0, Integer.MAX_VALUE)
+                .flatMapSequential(pageLoader::apply, prefetchPages, 1)
+                .map(PageExporter::records)
+                .takeUntil(records -> records.size() < pageSize)
+                .flatMapIterable(records -> records, 1);
+    }
+
+    private static List<JsonNode> records(JsonNode page) {
+        JsonNode content = page.path("content");
+        if (!content.isArray()) {
+            throw new IllegalStateException("Page has no content array: " + page.getNodeType());
+        }
+        List<JsonNode> records = new ArrayList<>(content.size());
+        content.forEach(records::add);
+        return records;
+    }
+}
@@ -0,0 +1,185 @@
+package transportation.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import transportation.cache.UserCache;
+import users.UserResponseDto;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Прогревает кэш пользователей после старта: восстанавливает горячие ключи из снимка
+ * на диске, а если снимка нет - загружает последних созданных пользователей из users/all.
+ * Снимок ключей кэша периодически сохраняется и записывается при остановке.
+ */
+@Slf4j
+@Component
+public class UserCacheWarmer {
+
+    private final WebClient userServiceClient;
+    private final UserService userService;
+    private final UserCache userCache;
+    private final PageExporter pageExporter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxUsers;
+    private final int pageSize;
+    private final Duration timeout;
+    private final boolean snapshotEnabled;
+    private final Path snapshotPath;
+    private final Duration snapshotInterval;
+    private final AtomicLong loaded = new AtomicLong();
+    private volatile long target;
+    private volatile boolean complete;
+    private Disposable snapshots;
+
+    public UserCacheWarmer(
+            WebClient userServiceClient,
+            UserService userService,
+            UserCache userCache,
+            PageExporter pageExporter,
+            ObjectMapper objectMapper,
+            @Value("${cache.warmup.enabled}") boolean enabled,
+            @Value("${cache.warmup.max_users}") int maxUsers,
+            @Value("${cache.warmup.page_size}") int pageSize,
+            @Value("${cache.warmup.timeout}") Duration timeout,
+            @Value("${cache.warmup.snapshot.enabled}") boolean snapshotEnabled,
+            @Value("${cache.warmup.snapshot.path}") String snapshotPath,
+            @Value("${cache.warmup.snapshot.interval}") Duration snapshotInterval) {
+        this.userServiceClient = userServiceClient;
+        this.userService = userService;
+        this.userCache = userCache;
+        this.pageExporter = pageExporter;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxUsers = maxUsers;
+        this.pageSize = pageSize;
+        this.timeout = timeout;
+        this.snapshotEnabled = snapshotEnabled;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.snapshotInterval = snapshotInterval;
+        this.target = maxUsers;
+        this.complete = !enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            long start = System.nanoTime();
+            Mono.fromCallable(this::readSnapshot)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(keys -> keys.isEmpty() ? loadRecentUsers() : restore(keys))
+                    .timeout(timeout)
+                    .doFinally(signal -> {
+                        complete = true;
+                        log.info("User cache warm-up finished ({}) with {} of {} users in {} ms", signal, loaded.get(), target,
+                                Duration.ofNanos(System.nanoTime() - start).toMillis());
+                    })
+                    .subscribe(count -> { }, error -> log.warn("User cache warm-up failed", error));
+        }
+        if (snapshotEnabled) {
+            snapshots = Flux.interval(snapshotInterval)
+                    .concatMap(tick -> Mono.fromCallable(() -> {
+                                writeSnapshot();
+                                return tick;
+                            })
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .onErrorResume(error -> {
+                                log.warn("Failed to write user cache snapshot", error);
+                                return Mono.empty();
+                            }))
+                    .subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshots != null) {
+            snapshots.dispose();
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                log.warn("Failed to write user cache snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * Доля загруженных пользователей от цели прогрева; после завершения прогрева - 1.
+     */
+    public double fillRatio() {
+        return complete || target == 0 ? 1 : Math.min(1, (double) loaded.get() / target);
+    }
+
+    private Mono<Long> restore(List<UUID> keys) {
+        target = keys.size();
+        return Flux.fromIterable(keys)
+                .buffer(pageSize)
+                .concatMap(chunk -> userService.getUsers(new HashSet<>(chunk))
+                        .doOnNext(user -> loaded.incrementAndGet())
+                        .count())
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> loadRecentUsers() {
+        return pageExporter.export(pageSize, pageNumber -> userServiceClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("users/all")
+                                .queryParam("pageNumber", pageNumber)
+                                .queryParam("pageSize", pageSize)
+                                .queryParam("sortBy", "creationDate")
+                                .queryParam("direction", "DESC")
+                                .build())
+                        .retrieve()
+                        .bodyToMono(JsonNode.class))
+                .take(maxUsers)
+                .concatMap(user -> Mono.fromCallable(() -> objectMapper.treeToValue(user, UserResponseDto.class))
+                        .flatMap(userCache::put)
+                        .doOnNext(saved -> loaded.incrementAndGet()))
+                .count();
+    }
+
+    private List<UUID> readSnapshot() throws IOException {
+        List<UUID> keys = new ArrayList<>();
+        if (!snapshotEnabled || !Files.isReadable(snapshotPath)) {
+            return keys;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+        while (buffer.remaining() >= 16 && keys.size() < maxUsers) {
+            keys.add(new UUID(buffer.getLong(), buffer.getLong()));
+        }
+        return keys;
+    }
+
+    private void writeSnapshot() throws IOException {
+        List<UUID> keys = userCache.keys(maxUsers);
+        ByteBuffer buffer = ByteBuffer.allocate(keys.size() * 16);
+        keys.forEach(key -> buffer.putLong(key.getMostSignificantBits()).putLong(key.getLeastSignificantBits()));
+        Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(snapshotPath.toAbsolutePath().getParent(), "users", ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,21 @@
+package transportation.service;
+
+import bill.BillPageResponse;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import users.UserResponseDto;
+
+import java.util.Map;
+
+/**
+ * Пользователь и первая страница его платежей. Если одна из частей не получена,
+ * она пустая, а причина указана в errors под именем части (user или bills).
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserOverview {
+
+    private final UserResponseDto user;
+    private final BillPageResponse bills;
+    private final Map<String, String> errors;
+}
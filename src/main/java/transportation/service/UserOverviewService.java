@@ -0,0 +1,74 @@
+package transportation.service;
+
+import bill.BillPageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import transportation.exception.UserNotFoundException;
+import users.UserResponseDto;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Собирает пользователя и первую страницу его платежей параллельно. У каждой части свой
+ * таймаут; ошибка одной части не отменяет другую. Отсутствующий пользователь - 404
+ * независимо от платежей.
+ */
+@Service
+public class UserOverviewService {
+
+    private final UserService userService;
+    private final BillService billService;
+    private final Duration userTimeout;
+    private final Duration billsTimeout;
+
+    public UserOverviewService(
+            UserService userService,
+            BillService billService,
+            @Value("${overview.user-timeout}") Duration userTimeout,
+            @Value("${overview.bills-timeout}") Duration billsTimeout) {
+        this.userService = userService;
+        this.billService = billService;
+        this.userTimeout = userTimeout;
+        this.billsTimeout = billsTimeout;
+    }
+
+    public Mono<UserOverview> getOverview(UUID externalId, Integer sizeNumber, String direction, Boolean showPaidBills) {
+        Mono<UserResponseDto> user = userService.getUser(externalId)
+                .timeout(userTimeout);
+        Mono<BillPageResponse> bills = billService.getPage(0, sizeNumber, "creationDate", direction, showPaidBills, externalId)
+                .map(HttpEntity::getBody)
+                .timeout(billsTimeout);
+        return Mono.zip(user.materialize(), bills.materialize())
+                .flatMap(results -> {
+                    Signal<UserResponseDto> userResult = results.getT1();
+                    Signal<BillPageResponse> billsResult = results.getT2();
+                    if (isNotFound(userResult.getThrowable()) || userResult.hasError() && billsResult.hasError()) {
+                        return Mono.error(userResult.getThrowable());
+                    }
+                    Map<String, String> errors = new HashMap<>();
+                    if (userResult.hasError()) {
+                        errors.put("user", describe(userResult.getThrowable()));
+                    }
+                    if (billsResult.hasError()) {
+                        errors.put("bills", describe(billsResult.getThrowable()));
+                    }
+                    return Mono.just(new UserOverview(userResult.get(), billsResult.get(), errors));
+                });
+    }
+
+    private static boolean isNotFound(Throwable error) {
+        return error instanceof UserNotFoundException || error instanceof WebClientResponseException.NotFound;
+    }
+
+    private static String describe(Throwable error) {
+        return error instanceof TimeoutException ? "Timed out" : error.getMessage();
+    }
+}
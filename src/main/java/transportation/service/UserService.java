@@ -1,43 +1,141 @@
 package transportation.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import transportation.cache.PageCache;
+import transportation.cache.UserCache;
+import transportation.cache.UserExistence;
+import transportation.cache.UserExistenceIndex;
+import transportation.event.UserEvent;
+import transportation.event.UserEventPublisher;
+import transportation.exception.UserNotFoundException;
+import users.UserPostDto;
+import users.UserPutDto;
 import users.UserResponseDto;
 
-import javax.cache.CacheManager;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    /**
+     * Одновременные загрузки промахов одного пакетного запроса; общий предел задает bulkhead user-cache-load.
+     */
+    private static final int BATCH_LOAD_CONCURRENCY = 16;
+
     private final WebClient userServiceClient;
-    private final CacheManager ehCacheManager;
-    @Value("${cache.users_cache}")
-    private String userCache;
+    private final UserCache userCache;
+    private final UserExistenceIndex userExistenceIndex;
+    private final PageCache pageCache;
+    private final UserEventPublisher userEventPublisher;
 
     public Mono<UserResponseDto> getUser(UUID externalId) {
-        var user = ehCacheManager.getCache(userCache).get(externalId);
-        System.out.println(user);
-        if (user == null) {
-            return userServiceClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("users/{externalId}")
-                            .build(externalId))
-                    .retrieve()
-                    .bodyToMono(UserResponseDto.class)
-                    .flatMap(userResponseDto ->
-                            saveUser(Mono.just(userResponseDto)));
-        }
-        return Mono.just((UserResponseDto) user);
+        return userCache.get(externalId, this::loadUser);
+    }
+
+    public Mono<UserExistence> getUserExistence(UUID externalId) {
+        return userExistenceIndex.check(externalId);
+    }
+
+    public Flux<UserResponseDto> getUsers(Set<UUID> externalIds) {
+        return userCache.getAllPresent(externalIds, this::loadUser)
+                .flatMapMany(cached -> Flux.fromIterable(externalIds)
+                        .flatMap(externalId -> cached.containsKey(externalId)
+                                ? Mono.just(cached.get(externalId))
+                                : userCache.load(externalId, this::loadUser)
+                                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                                .onErrorResume(UserNotFoundException.class, e -> Mono.empty()),
+                                BATCH_LOAD_CONCURRENCY));
+    }
+
+    public Mono<UserResponseDto> addUser(UserPostDto userPostDto) {
+        return saveUser(userServiceClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("users/add")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(userPostDto))
+                .retrieve()
+                .bodyToMono(UserResponseDto.class));
+    }
+
+    public Mono<UserResponseDto> updateUser(UUID externalId, UserPutDto userPutDto) {
+        return saveUser(userServiceClient.put()
+                .uri(uriBuilder -> uriBuilder
+                        .path("users/{externalId}")
+                        .build(externalId))
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(userPutDto))
+                .retrieve()
+                .bodyToMono(UserResponseDto.class));
     }
 
+    public Mono<UserResponseDto> reestablishUser(UUID externalId) {
+        return saveUser(userServiceClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("users/{externalId}")
+                        .build(externalId))
+                .retrieve()
+                .bodyToMono(UserResponseDto.class));
+    }
+
+    public Mono<String> deleteUser(UUID externalId) {
+        return evictAfter(userServiceClient.delete()
+                .uri(uriBuilder -> uriBuilder
+                        .path("users/{externalId}/delete")
+                        .build(externalId))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(String.class), userCache.evict(externalId)
+                .then(userExistenceIndex.markAbsent(externalId))
+                .then(userEventPublisher.publish(UserEvent.Type.DELETED, externalId)));
+    }
+
+    public Mono<String> deleteAllUsers() {
+        return evictAfter(userServiceClient.delete()
+                .uri(uriBuilder -> uriBuilder
+                        .path("users/delete")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(String.class), userCache.evictAll()
+                .then(userEventPublisher.publish(UserEvent.Type.DELETED_ALL, null)));
+    }
 
     public Mono<UserResponseDto> saveUser(Mono<UserResponseDto> userResponseDto) {
-        return userResponseDto.doOnSuccess(dto ->
-                ehCacheManager.getCache(userCache).put(dto.getExternalId(), dto));
+        return userResponseDto.flatMap(user -> userCache.put(user)
+                        .flatMap(saved -> userExistenceIndex.markPresent(saved.getExternalId())
+                                .then(userEventPublisher.publish(UserEvent.Type.UPDATED, saved.getExternalId()))
+                                .thenReturn(saved)))
+                .doFinally(signal -> pageCache.invalidate("user-service"));
+    }
+
+    private Mono<UserResponseDto> loadUser(UUID externalId) {
+        return userExistenceIndex.isAbsent(externalId)
+                .flatMap(absent -> absent
+                        ? Mono.<UserResponseDto>error(new UserNotFoundException(externalId))
+                        : userServiceClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("users/{externalId}")
+                                .build(externalId))
+                        .retrieve()
+                        .bodyToMono(UserResponseDto.class))
+                .onErrorResume(WebClientResponseException.NotFound.class, e ->
+                        userExistenceIndex.markAbsent(externalId).then(Mono.error(e)));
+    }
+
+    private <T> Mono<T> evictAfter(Mono<T> response, Mono<Void> eviction) {
+        return response
+                .flatMap(result -> eviction.thenReturn(result))
+                .switchIfEmpty(Mono.defer(() -> eviction.then(Mono.<T>empty())))
+                .doFinally(signal -> pageCache.invalidate("user-service"));
     }
 }
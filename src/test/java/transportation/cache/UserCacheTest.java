@@ -0,0 +1,104 @@
+package transportation.cache;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import transportation.config.CacheConfiguration;
+import transportation.config.CacheProperties;
+import users.UserResponseDto;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private CacheManager cacheManager;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getCaches().put("users", tiers(100, Duration.ofMinutes(60)));
+        cacheProperties.getCaches().put("absent_users", tiers(100, Duration.ofSeconds(30)));
+        cacheProperties.getCaches().put("pages", tiers(100, Duration.ofSeconds(300)));
+        cacheManager = new CacheConfiguration().ehCacheManager(cacheProperties, "users", "absent_users", "pages");
+        userCache = new UserCache(cacheManager, new SimpleMeterRegistry(), "users", cacheProperties,
+                BulkheadRegistry.ofDefaults(), 0.8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void cachesLoadedUser() {
+        UserResponseDto user = user();
+
+        userCache.load(user.getExternalId(), externalId -> Mono.just(user)).block(TIMEOUT);
+
+        assertThat(userCache.containsKey(user.getExternalId())).isTrue();
+    }
+
+    @Test
+    void loadFinishedAfterEvictDoesNotRestoreUser() {
+        UserResponseDto user = user();
+        Sinks.One<UserResponseDto> upstream = Sinks.one();
+        Mono<UserResponseDto> load = userCache.load(user.getExternalId(), externalId -> upstream.asMono()).cache();
+        load.subscribe();
+
+        userCache.evict(user.getExternalId()).block(TIMEOUT);
+        upstream.tryEmitValue(user);
+
+        assertThat(load.block(TIMEOUT)).isEqualTo(user);
+        assertThat(userCache.containsKey(user.getExternalId())).isFalse();
+    }
+
+    @Test
+    void loadFinishedAfterEvictAllDoesNotRestoreUser() {
+        UserResponseDto user = user();
+        Sinks.One<UserResponseDto> upstream = Sinks.one();
+        Mono<UserResponseDto> load = userCache.load(user.getExternalId(), externalId -> upstream.asMono()).cache();
+        load.subscribe();
+
+        userCache.evictAll().block(TIMEOUT);
+        upstream.tryEmitValue(user);
+
+        assertThat(load.block(TIMEOUT)).isEqualTo(user);
+        assertThat(userCache.containsKey(user.getExternalId())).isFalse();
+    }
+
+    @Test
+    void loadAfterEvictFetchesAgain() {
+        UserResponseDto user = user();
+        Sinks.One<UserResponseDto> stale = Sinks.one();
+        userCache.load(user.getExternalId(), externalId -> stale.asMono()).subscribe();
+
+        userCache.evict(user.getExternalId()).block(TIMEOUT);
+        userCache.load(user.getExternalId(), externalId -> Mono.just(user)).block(TIMEOUT);
+
+        assertThat(userCache.containsKey(user.getExternalId())).isTrue();
+    }
+
+    private static UserResponseDto user() {
+        UserResponseDto user = new UserResponseDto();
+        user.setExternalId(UUID.randomUUID());
+        return user;
+    }
+
+    private static CacheProperties.Tiers tiers(long heap, Duration ttl) {
+        CacheProperties.Tiers tiers = new CacheProperties.Tiers();
+        tiers.setHeap(heap);
+        tiers.setTtl(ttl);
+        return tiers;
+    }
+}
@@ -0,0 +1,164 @@
+package transportation.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import transportation.cache.UserCache;
+import transportation.cache.UserExistence;
+import transportation.cache.UserExistenceIndex;
+import users.UserResponseDto;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "kafka.user-events.enabled=true",
+                "kafka.user-events.topic=" + UserEventsTest.TOPIC,
+                "kafka.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+                "cache.warmup.enabled=false",
+                "cache.caches.users.offheap=16MB"
+        })
+@EmbeddedKafka(partitions = 1, topics = UserEventsTest.TOPIC)
+class UserEventsTest {
+
+    static final String TOPIC = "user-events";
+    private static final String OTHER_NODE = "other-node";
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+    @Autowired
+    private UserEventPublisher userEventPublisher;
+    @Autowired
+    private UserCache userCache;
+    @Autowired
+    private UserExistenceIndex userExistenceIndex;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Producer<String, String> producer;
+
+    /**
+     * Слушатель читает топик с конца, поэтому события, отправленные до того, как он занял
+     * позицию, ему не видны. Повторяем пробное событие, пока слушатель его не применит.
+     */
+    @BeforeEach
+    void awaitListener() {
+        producer = new KafkaProducer<>(
+                KafkaTestUtils.producerProps(embeddedKafka), new StringSerializer(), new StringSerializer());
+        UUID probe = UUID.randomUUID();
+        await(() -> {
+            send(new UserEvent(UserEvent.Type.DELETED, probe, OTHER_NODE));
+            return existence(probe) == UserExistence.ABSENT;
+        });
+    }
+
+    @AfterEach
+    void closeProducer() {
+        producer.close();
+    }
+
+    @Test
+    void publishesEventFromThisNode() throws Exception {
+        UUID externalId = UUID.randomUUID();
+
+        userEventPublisher.publish(UserEvent.Type.UPDATED, externalId).block();
+
+        ConsumerRecord<String, String> record = published(externalId);
+        UserEvent event = objectMapper.readValue(record.value(), UserEvent.class);
+        assertThat(event).isEqualTo(new UserEvent(UserEvent.Type.UPDATED, externalId, UserEvent.NODE_ID));
+    }
+
+    @Test
+    void evictsUserDeletedOnOtherNode() {
+        UUID externalId = cachedUser();
+
+        send(new UserEvent(UserEvent.Type.DELETED, externalId, OTHER_NODE));
+
+        await(() -> existence(externalId) == UserExistence.ABSENT);
+    }
+
+    @Test
+    void skipsEventFromThisNode() {
+        UUID own = cachedUser();
+        UUID other = cachedUser();
+
+        send(new UserEvent(UserEvent.Type.DELETED, own, UserEvent.NODE_ID));
+        send(new UserEvent(UserEvent.Type.DELETED, other, OTHER_NODE));
+
+        await(() -> existence(other) == UserExistence.ABSENT);
+        assertThat(existence(own)).isEqualTo(UserExistence.PRESENT);
+    }
+
+    private UUID cachedUser() {
+        UserResponseDto user = new UserResponseDto();
+        user.setExternalId(UUID.randomUUID());
+        userCache.put(user).block();
+        assertThat(existence(user.getExternalId())).isEqualTo(UserExistence.PRESENT);
+        return user.getExternalId();
+    }
+
+    private UserExistence existence(UUID externalId) {
+        return userExistenceIndex.check(externalId).block();
+    }
+
+    private void send(UserEvent event) {
+        try {
+            producer.send(new ProducerRecord<>(TOPIC, event.getExternalId().toString(), objectMapper.writeValueAsString(event)))
+                    .get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to send " + event, e);
+        }
+    }
+
+    private ConsumerRecord<String, String> published(UUID externalId) {
+        try (Consumer<String, String> consumer = new KafkaConsumer<>(
+                KafkaTestUtils.consumerProps("user-events-test", "false", embeddedKafka),
+                new StringDeserializer(), new StringDeserializer())) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+                    if (externalId.toString().equals(record.key())) {
+                        return record;
+                    }
+                }
+            }
+        }
+        throw new AssertionError("No event published for user " + externalId);
+    }
+
+    private static void await(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within " + TIMEOUT);
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
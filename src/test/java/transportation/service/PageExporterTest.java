@@ -0,0 +1,91 @@
+package transportation.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageExporterTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int PREFETCH_PAGES = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PageExporter pageExporter = new PageExporter(PREFETCH_PAGES);
+    private final AtomicInteger fetched = new AtomicInteger();
+
+    @Test
+    void fetchesPagesOnlyAheadOfDemand() {
+        List<JsonNode> received = new ArrayList<>();
+        BaseSubscriber<JsonNode> subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+            }
+
+            @Override
+            protected void hookOnNext(JsonNode record) {
+                received.add(record);
+            }
+        };
+        pageExporter.export(PAGE_SIZE, this::fullPage).subscribe(subscriber);
+
+        subscriber.request(1);
+        assertThat(received).hasSize(1);
+        assertThat(fetched.get()).isEqualTo(1 + PREFETCH_PAGES);
+
+        subscriber.request(3L * PAGE_SIZE - 1);
+        assertThat(received).hasSize(3 * PAGE_SIZE);
+        assertThat(fetched.get()).isEqualTo(4 + PREFETCH_PAGES);
+
+        subscriber.request(1);
+        assertThat(fetched.get()).isEqualTo(4 + PREFETCH_PAGES);
+
+        subscriber.dispose();
+    }
+
+    @Test
+    void stopsAfterShortPage() {
+        List<JsonNode> records = pageExporter.export(PAGE_SIZE, pageNumber -> pageNumber < 2
+                        ? fullPage(pageNumber)
+                        : Mono.just(page(pageNumber, 3)))
+                .collectList()
+                .block();
+
+        assertThat(records).hasSize(2 * PAGE_SIZE + 3);
+    }
+
+    @Test
+    void failsOnPageWithoutContent() {
+        assertThatThrownBy(() -> pageExporter.export(PAGE_SIZE, pageNumber -> Mono.just(objectMapper.createObjectNode()))
+                .blockLast())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no content array");
+    }
+
+    private Mono<JsonNode> fullPage(int pageNumber) {
+        return Mono.fromCallable(() -> {
+            fetched.incrementAndGet();
+            return page(pageNumber, PAGE_SIZE);
+        });
+    }
+
+    private JsonNode page(int pageNumber, int size) {
+        ObjectNode page = objectMapper.createObjectNode();
+        ArrayNode content = page.putArray("content");
+        for (int i = 0; i < size; i++) {
+            content.addObject().put("id", pageNumber * PAGE_SIZE + i);
+        }
+        return page;
+    }
+}